@@ -27,7 +27,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.Permission;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -40,15 +39,20 @@ import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import de.fosd.jdime.artifact.Artifact;
+import de.fosd.jdime.artifact.ArtifactList;
 import de.fosd.jdime.artifact.ast.ASTNodeArtifact;
+import de.fosd.jdime.artifact.ast.ParseCache;
 import de.fosd.jdime.artifact.file.FileArtifact;
+import de.fosd.jdime.artifact.file.FileDigestCache;
 import de.fosd.jdime.config.JDimeConfig;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.config.merge.Revision;
 import de.fosd.jdime.execption.AbortException;
 import de.fosd.jdime.operations.MergeOperation;
 import de.fosd.jdime.stats.KeyEnums;
 import de.fosd.jdime.stats.Statistics;
+import de.fosd.jdime.strategy.BlockMergeCache;
 import de.fosd.jdime.strategy.MergeStrategy;
 import de.fosd.jdime.strdump.DumpMode;
 import org.apache.commons.cli.HelpFormatter;
@@ -156,6 +160,7 @@ public final class Main {
             merge(context);
             output(context);
         } finally {
+            FileDigestCache.save();
             outputStatistics(context);
         }
 
@@ -365,6 +370,9 @@ public final class Main {
             return false;
         }
 
+        config.getInteger(PARSE_CACHE_SIZE).ifPresent(ParseCache::setMaxSize);
+        config.getInteger(BLOCK_MERGE_CACHE_SIZE).ifPresent(BlockMergeCache::setMaxSize);
+        config.get(FILE_DIGEST_CACHE).map(File::new).ifPresent(FileDigestCache::load);
         context.configureFrom(config);
         return true;
     }
@@ -446,6 +454,63 @@ public final class Main {
         merge.apply(context);
     }
 
+    /**
+     * Merges the given contents of a Java source file in memory. No files are read or written, the input files and
+     * the output file of the <code>context</code> are replaced by virtual <code>FileArtifact</code>s holding the
+     * given contents (see {@link FileArtifact#FileArtifact(Revision, String, CharSequence)}). The inputs are named
+     * after their <code>Revision</code> and the given <code>name</code>, which is reflected e.g. in the conflict
+     * markers in the result.
+     *
+     * @param context
+     *         the <code>MergeContext</code> configuring the merge
+     * @param name
+     *         the name of the file being merged, it should end in <code>.java</code>
+     * @param left
+     *         the content of the left revision
+     * @param base
+     *         the content of the base revision or <code>null</code> for a two-way merge
+     * @param right
+     *         the content of the right revision
+     * @return the merged content
+     */
+    public static String merge(MergeContext context, String name, CharSequence left, CharSequence base,
+                               CharSequence right) {
+
+        List<FileArtifact> inFiles = new ArtifactList<>();
+        inFiles.add(inMemory(MergeScenario.LEFT, name, left));
+
+        if (base != null) {
+            inFiles.add(inMemory(MergeScenario.BASE, name, base));
+        }
+
+        inFiles.add(inMemory(MergeScenario.RIGHT, name, right));
+
+        FileArtifact outFile = new FileArtifact(MergeScenario.MERGE, name, "");
+
+        context.setInputFiles(inFiles);
+        context.setOutputFile(outFile);
+
+        merge(context);
+
+        return outFile.getContent();
+    }
+
+    /**
+     * Returns a virtual <code>FileArtifact</code> holding the given content of the file with the given name in the
+     * given <code>Revision</code>.
+     *
+     * @param revision
+     *         the <code>Revision</code> of the content
+     * @param name
+     *         the name of the file
+     * @param content
+     *         the content of the file
+     * @return the virtual <code>FileArtifact</code>
+     */
+    private static FileArtifact inMemory(Revision revision, String name, CharSequence content) {
+        return new FileArtifact(revision, new File(revision.getName(), name).getPath(), content);
+    }
+
     /**
      * Dumps the given <code>FileArtifact</code> using the <code>mode</code>.
      *
@@ -463,36 +528,13 @@ public final class Main {
         if (mode == DumpMode.FILE_DUMP || artifact.isDirectory()) {
             System.out.println(artifact.dump(mode));
         } else {
-            SecurityManager prevSecManager = System.getSecurityManager();
-            SecurityManager noExitManager = new SecurityManager() {
-                @Override
-                public void checkPermission(Permission perm) {
-                    // allow anything.
-                }
-
-                @Override
-                public void checkPermission(Permission perm, Object context) {
-                    // allow anything.
-                }
-
-                @Override
-                public void checkExit(int status) {
-                    super.checkExit(status);
-                    throw new SecurityException("Captured attempt to exit JVM.");
-                }
-            };
-
             ASTNodeArtifact astArtifact;
 
-            System.setSecurityManager(noExitManager);
-
             try {
                 astArtifact = new ASTNodeArtifact(artifact);
             } catch (RuntimeException e) {
                 LOG.log(Level.WARNING, e, () -> "Could not parse " + artifact + " to an ASTNodeArtifact.");
                 return;
-            } finally {
-                System.setSecurityManager(prevSecManager);
             }
 
             System.out.println(astArtifact.dump(mode));
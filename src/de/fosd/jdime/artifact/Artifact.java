@@ -34,6 +34,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -93,7 +94,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
     protected HashMap<String, T> variants;
 
     /**
-     * Map to store matches.
+     * Map to store matches. Matchings for different <code>Revision</code>s may be added concurrently.
      */
     protected Map<Revision, Matching<T>> matches;
 
@@ -117,8 +118,13 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      */
     private int number;
 
-    private boolean hashValid;
-    private String hash;
+    /**
+     * Whether the children of the artifact are yet to be created by {@link #loadChildren()}.
+     */
+    private volatile boolean childrenDeferred;
+
+    private volatile boolean hashValid;
+    private volatile String hash;
 
     /**
      * Constructs a new <code>Artifact</code>.
@@ -130,7 +136,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      */
     protected Artifact(Revision rev, int number) {
         this.children = new ArtifactList<>();
-        this.matches = new HashMap<>();
+        this.matches = new ConcurrentHashMap<>();
         this.revision = rev;
         this.number = number;
         this.hashValid = false;
@@ -211,7 +217,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
             return;
         }
 
-        this.matches = new HashMap<>();
+        this.matches = new ConcurrentHashMap<>();
 
         toCopy.matches.entrySet().forEach(en -> {
             Matching<T> clone = en.getValue().clone();
@@ -225,7 +231,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * Clears all matches recursively.
      */
     public void clearAllMatches() {
-        matches = new HashMap<>();
+        matches = new ConcurrentHashMap<>();
         for (T child : getChildren()) {
             child.clearAllMatches();
         }
@@ -302,6 +308,56 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      */
     public abstract boolean exists();
 
+    /**
+     * Defers the creation of the children of this {@link Artifact} until they are first accessed. At that point they
+     * are obtained from {@link #loadChildren()}. Setting the children explicitly via {@link #setChildren(List)} cancels
+     * the deferral.
+     */
+    protected final void deferChildren() {
+        childrenDeferred = true;
+    }
+
+    /**
+     * Returns whether the children of this {@link Artifact} have been deferred (see {@link #deferChildren()}) and not
+     * yet been created.
+     *
+     * @return true iff the children of this {@link Artifact} are yet to be created
+     */
+    protected final boolean hasDeferredChildren() {
+        return childrenDeferred;
+    }
+
+    /**
+     * Creates the children of this {@link Artifact} after their creation was deferred using {@link #deferChildren()}.
+     * The children must already have this {@link Artifact} as their parent. Loading the children must not change the
+     * tree hash of this {@link Artifact}. The default implementation returns an empty list.
+     *
+     * @return the children of this {@link Artifact}
+     */
+    protected List<T> loadChildren() {
+        return new ArtifactList<>();
+    }
+
+    /**
+     * Returns the list of children of this {@link Artifact}, loading them first if their creation was deferred.
+     *
+     * @return the list of {@link #children}
+     */
+    private List<T> children() {
+
+        if (childrenDeferred) {
+            synchronized (this) {
+
+                if (childrenDeferred) {
+                    children = loadChildren();
+                    childrenDeferred = false;
+                }
+            }
+        }
+
+        return children;
+    }
+
     /**
      * Adds the given {@link Artifact} to the children of this {@link Artifact} and sets the {@link #parent}
      * accordingly.
@@ -312,7 +368,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
     public void addChild(T child) {
 
         if (canAddChild(child)) {
-            children.add(child);
+            children().add(child);
             child.setParent(self());
             invalidateHash();
         }
@@ -331,7 +387,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
     public void setChild(T child, int index) {
 
         if (canAddChild(child)) {
-            children.set(index, child);
+            children().set(index, child);
             child.setParent(self());
             invalidateHash();
         }
@@ -356,7 +412,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      */
     public void clearChildren() {
         if (hasChildren()) {
-            children.clear();
+            children().clear();
             invalidateHash();
         }
     }
@@ -371,7 +427,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @see List#indexOf(Object)
      */
     public int indexOf(T child) {
-        return children.indexOf(child);
+        return children().indexOf(child);
     }
 
     /**
@@ -382,7 +438,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return child <code>Artifact</code> at position i
      */
     public T getChild(int i) {
-        return children.get(i);
+        return children().get(i);
     }
 
     /**
@@ -392,7 +448,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @see Collections#unmodifiableList(List)
      */
     public List<T> getChildren() {
-        return Collections.unmodifiableList(children);
+        return Collections.unmodifiableList(children());
     }
 
     /**
@@ -407,6 +463,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         Objects.requireNonNull(children, "The list of children must not be null.");
 
         this.children = children;
+        this.childrenDeferred = false;
         invalidateHash();
     }
 
@@ -418,6 +475,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      *         the action to apply to the list of {@link #children}
      */
     protected void modifyChildren(Consumer<List<T>> action) {
+        List<T> children = children();
         int hashBefore = children.hashCode();
         action.accept(children);
 
@@ -432,7 +490,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return number of children
      */
     public int getNumChildren() {
-        return children.size();
+        return children().size();
     }
 
     /**
@@ -441,7 +499,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return true if the <code>Artifact</code> has children
      */
     public boolean hasChildren() {
-        return !children.isEmpty();
+        return !children().isEmpty();
     }
 
     /**
@@ -468,15 +526,18 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         MessageDigest digest = DigestUtils.getSha256Digest();
         DigestUtils.updateDigest(digest, hashId());
 
+        String treeHash;
+
         if (hasChildren()) {
-            children.forEach(c -> DigestUtils.updateDigest(digest, c.getTreeHash()));
-            hash = "1" + Hex.encodeHexString(digest.digest());
+            children().forEach(c -> DigestUtils.updateDigest(digest, c.getTreeHash()));
+            treeHash = "1" + Hex.encodeHexString(digest.digest());
         } else {
-            hash = "0" + Hex.encodeHexString(digest.digest());
+            treeHash = "0" + Hex.encodeHexString(digest.digest());
         }
 
+        hash = treeHash;
         hashValid = true;
-        return hash;
+        return treeHash;
     }
 
     /**
@@ -508,7 +569,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return <code>Matching</code> with <code>Revision</code>
      */
     public Matching<T> getMatching(Revision rev) {
-        return matches.get(rev);
+        return rev == null ? null : matches.get(rev);
     }
 
     /**
@@ -556,7 +617,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
     private void renumber(Supplier<Integer> number) {
         this.number = number.get();
 
-        for (Artifact<T> child : children) {
+        for (Artifact<T> child : children()) {
             child.renumber(number);
         }
     }
@@ -585,7 +646,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return the maximum depth
      */
     public int getMaxDepth() {
-        return 1 + children.parallelStream().map(T::getMaxDepth).max(Integer::compare).orElse(0);
+        return 1 + children().parallelStream().map(T::getMaxDepth).max(Integer::compare).orElse(0);
     }
 
     /**
@@ -657,7 +718,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         if (isChoice()) {
             return variants.entrySet().stream().map(Entry::getValue).anyMatch(var -> var.hasMatching(rev));
         } else {
-            return matches.containsKey(rev);
+            return rev != null && matches.containsKey(rev);
         }
     }
 
@@ -675,7 +736,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         if (isChoice()) {
             return variants.entrySet().stream().map(Entry::getValue).anyMatch(var -> var.hasMatching(other));
         } else {
-            return matches.containsKey(otherRev) && matches.get(otherRev).getMatchingArtifact(this) == other;
+            return otherRev != null && matches.containsKey(otherRev) && matches.get(otherRev).getMatchingArtifact(this) == other;
         }
     }
 
@@ -921,7 +982,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         this.revision = revision;
 
         if (recursive) {
-            for (T child : children) {
+            for (T child : children()) {
                 child.setRevision(revision, true);
             }
         }
@@ -957,6 +1018,6 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
             return Optional.of(this);
         }
 
-        return children.stream().map(c -> c.find(number)).filter(Optional::isPresent).findFirst().map(Optional::get);
+        return children().stream().map(c -> c.find(number)).filter(Optional::isPresent).findFirst().map(Optional::get);
     }
 }
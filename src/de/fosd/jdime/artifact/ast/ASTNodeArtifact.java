@@ -23,7 +23,9 @@
  */
 package de.fosd.jdime.artifact.ast;
 
+import java.io.IOError;
 import java.io.IOException;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -44,9 +46,13 @@ import de.fosd.jdime.operations.MergeOperation;
 import de.fosd.jdime.operations.Operation;
 import de.fosd.jdime.stats.KeyEnums;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
+import de.fosd.jdime.strategy.SemiStructuredStrategy;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.extendj.ast.ASTNode;
 import org.extendj.ast.Block;
 import org.extendj.ast.ClassDecl;
+import org.extendj.ast.CompilationUnit;
 import org.extendj.ast.ConstructorDecl;
 import org.extendj.ast.ImportDecl;
 import org.extendj.ast.InterfaceDecl;
@@ -55,6 +61,7 @@ import org.extendj.ast.MethodDecl;
 import org.extendj.ast.Program;
 import org.extendj.ast.TryStmt;
 
+import static de.fosd.jdime.config.merge.MergeType.THREEWAY;
 import static de.fosd.jdime.strdump.DumpMode.PLAINTEXT_TREE;
 
 /**
@@ -66,25 +73,32 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
     private static final Logger LOG = Logger.getLogger(ASTNodeArtifact.class.getCanonicalName());
 
     /**
-     * Parses the content of the given <code>FileArtifact</code> to an AST. If the <code>artifact</code> is empty,
-     * an empty <code>ASTNode</code> obtained via {@link ASTNode#ASTNode()} will be returned.
+     * Parses the given content of a <code>FileArtifact</code> to an AST. If the <code>content</code> is empty,
+     * an empty <code>ASTNode</code> obtained via {@link ASTNode#ASTNode()} will be returned. The content is parsed
+     * from memory, the file represented by the <code>artifact</code> does not have to exist.
      *
      * @param artifact
      *         the <code>FileArtifact</code> to parse
+     * @param content
+     *         the content of <code>artifact</code> (see {@link FileArtifact#getContent()})
      * @return the root of the resulting AST
      */
-    private static ASTNode<?> parse(FileArtifact artifact) {
+    @SuppressWarnings("try")
+    private static ASTNode<?> parse(FileArtifact artifact, String content) {
         ASTNode<?> astNode;
 
-        if (artifact.isEmpty()) {
+        if (content.isEmpty()) {
             astNode = new ASTNode<>();
         } else {
-            Program p = new Program();
+            Program p = ParserIsolation.newProgram();
 
-            try {
-                p.addSourceFile(artifact.getFile().getPath());
+            try (ParserIsolation.Scope s = ParserIsolation.enter()) {
+                new ContentClassSource(artifact, content).addTo(p);
+                resolveRewrites(p);
             } catch (IOException e) {
                 throw new RuntimeException(e);
+            } catch (IOError e) {
+                throw new RuntimeException(e.getCause());
             }
 
             astNode = p;
@@ -98,15 +112,53 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
      */
     protected ASTNode<?> astnode;
 
+    /**
+     * Whether the {@link #astnode} is shared with the <code>ASTNodeArtifact</code> this one was copied from. A shared
+     * <code>ASTNode</code> is cloned (see {@link #ownASTNode()}) before it is modified.
+     */
+    private boolean sharedASTNode;
+
+    /**
+     * The tree hashes of the <code>ASTNode</code>s in the parsed tree this artifact belongs to. Used to calculate the
+     * tree hash while the children of this artifact are not yet created. <code>null</code> for artifacts whose
+     * children are created eagerly.
+     */
+    private Map<ASTNode<?>, String> treeHashes;
+
+    /**
+     * If this artifact is the target of the merge of a method or class declaration and
+     * {@link MergeContext#isSubtreeFallback()} is set, the merged declarations and the <code>MergeContext</code> used
+     * to merge them line based (see {@link #fallBack(RuntimeException)}) if merging or rebuilding the subtree fails.
+     */
+    private MergeScenario<ASTNodeArtifact> fallbackScenario;
+    private MergeContext fallbackContext;
+
     /**
      * Constructs a new <code>ASTNodeArtifact</code> (tree) representing the AST of the code in <code>artifact</code>.
-     * All members of the tree will be in the same <code>Revision</code> as <code>artifact</code>.
+     * All members of the tree will be in the same <code>Revision</code> as <code>artifact</code>. If the
+     * {@link ParseCache} contains the AST of <code>artifact</code>, a copy of it is used instead of parsing the file
+     * again.
      *
      * @param artifact
      *         the <code>FileArtifact</code> containing the code to be parsed
      */
     public ASTNodeArtifact(FileArtifact artifact) {
-        this(artifact.getRevision(), new AtomicInteger()::getAndIncrement, parse(artifact));
+        this(artifact, artifact.getContent());
+    }
+
+    /**
+     * Constructs a new <code>ASTNodeArtifact</code> (tree) representing the AST of the given content of
+     * <code>artifact</code>. Callers that already decoded the content use this constructor to avoid decoding it again.
+     *
+     * @param artifact
+     *         the <code>FileArtifact</code> containing the code to be parsed
+     * @param content
+     *         the content of <code>artifact</code> (see {@link FileArtifact#getContent()})
+     * @see #ASTNodeArtifact(FileArtifact)
+     */
+    public ASTNodeArtifact(FileArtifact artifact, String content) {
+        this(artifact.getRevision(), 0, resolveRewrites(ParseCache.parse(artifact, content, ASTNodeArtifact::parse)),
+             Collections.synchronizedMap(new IdentityHashMap<>()));
     }
 
     /**
@@ -152,7 +204,33 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
     }
 
     /**
-     * Copies the given {@link Artifact}.
+     * Constructs a new <code>ASTNodeArtifact</code> encapsulating the given <code>ASTNode</code>. The
+     * <code>ASTNodeArtifact</code> children encapsulating the children of <code>astNode</code> are only created when
+     * they are first accessed (see {@link #loadChildren()}). Until then, the tree hash is calculated directly from the
+     * <code>ASTNode</code> tree. All rewrites in the tree under <code>astNode</code> must have been resolved (see
+     * {@link #resolveRewrites(ASTNode)}).
+     *
+     * @param revision
+     *         the <code>Revision</code> for this <code>ASTNodeArtifact</code>
+     * @param number
+     *         the DFS index of this artifact in its tree
+     * @param astNode
+     *         the <code>ASTNode</code> to encapsulate
+     * @param treeHashes
+     *         the tree hashes of the <code>ASTNode</code>s in the tree <code>astNode</code> belongs to
+     */
+    private ASTNodeArtifact(Revision revision, int number, ASTNode<?> astNode, Map<ASTNode<?>, String> treeHashes) {
+        super(revision, number);
+
+        this.astnode = astNode;
+        this.treeHashes = treeHashes;
+        deferChildren();
+    }
+
+    /**
+     * Copies the given {@link Artifact}. The copy shares the encapsulated <code>ASTNode</code> with
+     * <code>toCopy</code> until it has to be modified while rebuilding the AST (see {@link #prettyPrint()}). Subtrees
+     * of copies that are not changed by a merge are therefore never cloned.
      *
      * @param toCopy
      *         to {@link Artifact} to copy
@@ -161,11 +239,8 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
     protected ASTNodeArtifact(ASTNodeArtifact toCopy) {
         super(toCopy);
 
-        try {
-            this.astnode = toCopy.astnode.clone();
-        } catch (CloneNotSupportedException e) {
-            throw new RuntimeException(e);
-        }
+        this.astnode = toCopy.astnode;
+        this.sharedASTNode = true;
     }
 
     /**
@@ -187,6 +262,95 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
         setChildren(children);
     }
 
+    @Override
+    protected List<ASTNodeArtifact> loadChildren() {
+        List<ASTNodeArtifact> children = new ArtifactList<>();
+        int number = getNumber() + 1;
+
+        for (int i = 0; i < astnode.getNumChildNoTransform(); i++) {
+            ASTNode<?> childNode = astnode.getChildNoTransform(i);
+            ASTNodeArtifact child = new ASTNodeArtifact(getRevision(), number, childNode, treeHashes);
+
+            child.setParent(this);
+            children.add(child);
+            number += treeSize(childNode);
+        }
+
+        return children;
+    }
+
+    /**
+     * Replaces every child in the tree under <code>astNode</code> that ExtendJ rewrites when it is accessed with the
+     * result of the rewrite. Afterwards, {@link ASTNode#getChildNoTransform(int)} returns the same nodes as
+     * {@link ASTNode#getChild(int)} without evaluating any attributes, which makes it safe to create the
+     * <code>ASTNodeArtifact</code> children lazily.
+     *
+     * @param astNode
+     *         the root of the tree whose rewrites are to be resolved
+     * @return <code>astNode</code>
+     */
+    private static ASTNode<?> resolveRewrites(ASTNode<?> astNode) {
+
+        for (int i = 0; i < astNode.getNumChild(); i++) {
+            ASTNode<?> child = astNode.getChild(i);
+
+            if (child != astNode.getChildNoTransform(i)) {
+                astNode.setChild(child, i);
+            }
+
+            resolveRewrites(child);
+        }
+
+        return astNode;
+    }
+
+    /**
+     * Returns the number of nodes in the tree under <code>astNode</code> (including <code>astNode</code> itself).
+     *
+     * @param astNode
+     *         the root of the tree
+     * @return the size of the tree
+     */
+    private static int treeSize(ASTNode<?> astNode) {
+        int size = 1;
+
+        for (int i = 0; i < astNode.getNumChildNoTransform(); i++) {
+            size += treeSize(astNode.getChildNoTransform(i));
+        }
+
+        return size;
+    }
+
+    /**
+     * Calculates the tree hash of the tree under <code>astNode</code> in the same way as {@link Artifact#getTreeHash()}
+     * does for an <code>ASTNodeArtifact</code> tree encapsulating it. Hashes are cached in <code>treeHashes</code>.
+     *
+     * @param astNode
+     *         the root of the tree
+     * @param treeHashes
+     *         the cached tree hashes
+     * @return the tree hash
+     */
+    private static String treeHash(ASTNode<?> astNode, Map<ASTNode<?>, String> treeHashes) {
+        String treeHash = treeHashes.get(astNode);
+
+        if (treeHash != null) {
+            return treeHash;
+        }
+
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        DigestUtils.updateDigest(digest, astNode.getMatchingRepresentation());
+
+        for (int i = 0; i < astNode.getNumChildNoTransform(); i++) {
+            DigestUtils.updateDigest(digest, treeHash(astNode.getChildNoTransform(i), treeHashes));
+        }
+
+        treeHash = (astNode.getNumChildNoTransform() > 0 ? "1" : "0") + Hex.encodeHexString(digest.digest());
+        treeHashes.put(astNode, treeHash);
+
+        return treeHash;
+    }
+
     /**
      * Returns whether the {@link ASTNode} contained in this {@link ASTNodeArtifact}
      * requires a fixed number of children.
@@ -202,6 +366,27 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
         return this;
     }
 
+    /**
+     * Clones the encapsulated <code>ASTNode</code> if it is shared with the <code>ASTNodeArtifact</code> this one was
+     * copied from. Must be called before modifying the {@link #astnode}. The clone has no parent until it is added
+     * to the children of another <code>ASTNode</code> while rebuilding the AST.
+     */
+    protected final void ownASTNode() {
+
+        if (!sharedASTNode) {
+            return;
+        }
+
+        try {
+            astnode = astnode.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+
+        astnode.setParent(null);
+        sharedASTNode = false;
+    }
+
     /**
      * Returns the encapsulated ExtendJ AST node.
      *
@@ -250,6 +435,26 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
         return getRevision() + ":" + getNumber();
     }
 
+    @Override
+    public String getTreeHash() {
+
+        if (hasDeferredChildren()) {
+            return treeHash(astnode, treeHashes);
+        }
+
+        return super.getTreeHash();
+    }
+
+    @Override
+    public int getSubtreeSize() {
+
+        if (hasDeferredChildren()) {
+            return treeSize(astnode) - 1;
+        }
+
+        return super.getSubtreeSize();
+    }
+
     @Override
     protected String hashId() {
         return astnode.getMatchingRepresentation();
@@ -468,7 +673,21 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
             Merge<ASTNodeArtifact> merge = new Merge<>();
 
             LOG.finest(() -> "Merging ASTs " + operation.getMergeScenario());
-            merge.merge(operation, context);
+
+            if (context.isSubtreeFallback() && !context.isExitOnError() && target.canFallBack()) {
+                target.fallbackScenario = triple;
+                target.fallbackContext = context;
+
+                try {
+                    merge.merge(operation, context);
+                } catch (AbortException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    target.fallBack(e);
+                }
+            } else {
+                merge.merge(operation, context);
+            }
         } else {
             LOG.finest(() -> String.format("Target %s expects a fixed amount of children.", target.getId()));
             LOG.finest(() -> String.format("Both %s and %s contain changes.", left.getId(), right.getId()));
@@ -476,11 +695,21 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
 
             // to be safe, we will report a conflict instead of merging
             ASTNodeArtifact targetParent = target.getParent();
-            targetParent.removeChild(target);
 
-            Operation<ASTNodeArtifact> conflictOp = new ConflictOperation<>(left, right, targetParent,
-                    left.getRevision().getName(), right.getRevision().getName());
-            conflictOp.apply(context);
+            // siblings of the target may be merged concurrently, the conflict has to take over the slot of the target
+            synchronized (targetParent) {
+                int index = targetParent.indexOf(target);
+                targetParent.removeChild(target);
+
+                int numChildren = targetParent.getNumChildren();
+                Operation<ASTNodeArtifact> conflictOp = new ConflictOperation<>(left, right, targetParent,
+                        left.getRevision().getName(), right.getRevision().getName());
+                conflictOp.apply(context);
+
+                if (targetParent.getNumChildren() > numChildren) {
+                    targetParent.modifyChildren(children -> children.add(index, children.remove(numChildren)));
+                }
+            }
         }
     }
 
@@ -500,12 +729,56 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
     }
 
     /**
-     * Rebuild the encapsulated ASTNode tree top down. This should be only
-     * called at the root node
+     * Rebuild the encapsulated ASTNode tree. This should be only
+     * called at the root node. Children are rebuilt before their parents. Nodes
+     * sharing their <code>ASTNode</code> (see {@link #ownASTNode()}) whose children are unchanged are left as they are.
+     * <code>ASTNode</code>s that are part of the tree of a revision keep their parent there, so the parents in the
+     * trees of the revisions are not changed by rebuilding the merged AST. If rebuilding the subtree of a declaration
+     * that may be merged line based (see {@link #fallBack(RuntimeException)}) fails, it is replaced by the result of
+     * the line based merge.
      */
     private void rebuildAST() {
         LOG.finest(() -> String.format("%s.rebuildAST()", getId()));
 
+        if (hasDeferredChildren()) {
+            // Nothing in the tree under this artifact was accessed and therefore nothing was changed.
+            return;
+        }
+
+        if (fallbackScenario == null) {
+            rebuildSubtree();
+            return;
+        }
+
+        try {
+            rebuildSubtree();
+        } catch (RuntimeException e) {
+            // This includes the AbortException thrown for ExtendJ nodes with an unexpected number of children.
+            fallBack(e);
+        }
+    }
+
+    /**
+     * Rebuilds the encapsulated ASTNode tree under this artifact.
+     *
+     * @see #rebuildAST()
+     */
+    private void rebuildSubtree() {
+        boolean modified = isConflict() || isChoice() || getNumChildren() != astnode.getNumChildNoTransform();
+
+        for (int i = 0; i < getNumChildren(); i++) {
+            ASTNodeArtifact child = getChild(i);
+            child.rebuildAST();
+
+            modified |= i >= astnode.getNumChildNoTransform() || child.astnode != astnode.getChildNoTransform(i);
+        }
+
+        if (sharedASTNode && !modified) {
+            return;
+        }
+
+        ownASTNode();
+
         if (isConflict()) {
             astnode.isConflict = true;
             astnode.jdimeId = getId();
@@ -542,17 +815,24 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
         }
 
         ASTNode<?>[] newChildren = new ASTNode<?>[getNumChildren()];
+        ASTNode<?>[] parents = new ASTNode<?>[getNumChildren()];
 
         for (int i = 0; i < getNumChildren(); i++) {
-            ASTNodeArtifact child = getChild(i);
-            newChildren[i] = child.astnode;
-            newChildren[i].setParent(astnode);
-            child.rebuildAST();
+            newChildren[i] = getChild(i).astnode;
+            parents[i] = newChildren[i].getParent();
         }
 
         astnode.jdimeId = getId();
         astnode.setChildren(newChildren);
 
+        // setChildren sets the parent of every child. Nodes that are part of the tree of a revision keep theirs.
+        for (int i = 0; i < newChildren.length; i++) {
+
+            if (parents[i] != null) {
+                newChildren[i].setParent(parents[i]);
+            }
+        }
+
         if (!isVirtual() && hasFixedNumberOfChildren() && getNumChildren() != astnode.getNumChildNoTransform()) {
             String msg = String.format("The %s requires a fixed number of children. JDime children: %d ExtendJ " +
                                        "children: %d after AST rebuild. This is either a bug in ExtendJ or in JDime! " +
@@ -562,6 +842,72 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
         }
     }
 
+    /**
+     * Returns whether the subtree under this target artifact can be replaced by the result of merging its code line
+     * based if its structured merge fails. This is the case for method and class declarations in an
+     * {@link org.extendj.ast.List} (see {@link LinebasedASTNode}).
+     *
+     * @return whether the subtree can be merged line based
+     */
+    private boolean canFallBack() {
+        KeyEnums.Type type = getType();
+        ASTNodeArtifact parent = getParent();
+
+        return (type == KeyEnums.Type.METHOD || type == KeyEnums.Type.CLASS) && parent != null && parent.isList();
+    }
+
+    /**
+     * Replaces the subtree under this target artifact by the result of merging the pretty printed code of the
+     * declarations in the {@link #fallbackScenario} line based. The rest of the merged tree is not affected.
+     *
+     * @param cause
+     *         the exception that caused the structured merge of the subtree to fail
+     */
+    private void fallBack(RuntimeException cause) {
+        MergeScenario<ASTNodeArtifact> scenario = fallbackScenario;
+        MergeContext context = fallbackContext.fork();
+
+        fallbackScenario = null;
+        fallbackContext = null;
+
+        LOG.log(Level.WARNING, cause, () -> String.format("Merging %s (%s) structured failed. Falling back to a " +
+                                                          "line based merge of its code.", getId(), this));
+
+        FileArtifact left = code(scenario.getLeft());
+        FileArtifact base = code(scenario.getBase());
+        FileArtifact right = code(scenario.getRight());
+        FileArtifact merged = new FileArtifact(MergeScenario.TARGET, left.getFile().getPath(), "");
+
+        MergeScenario<FileArtifact> fileScenario = new MergeScenario<>(THREEWAY, left, base, right);
+        SemiStructuredStrategy.mergeBlock(new MergeOperation<>(fileScenario, merged), context);
+
+        astnode = new LinebasedASTNode(merged.getContent());
+        sharedASTNode = false;
+        setChildren(new ArtifactList<>());
+    }
+
+    /**
+     * Returns a <code>FileArtifact</code> containing the pretty printed code of the given (unmerged)
+     * <code>artifact</code>. It is named like the file the <code>artifact</code> was parsed from.
+     *
+     * @param artifact
+     *         the <code>ASTNodeArtifact</code> whose code is to be returned
+     * @return the code of the <code>artifact</code>
+     */
+    private static FileArtifact code(ASTNodeArtifact artifact) {
+        String name = artifact.getRevision().getName();
+
+        for (ASTNode<?> node = artifact.astnode; node != null; node = node.getParent()) {
+
+            if (node instanceof CompilationUnit) {
+                name = Optional.ofNullable(((CompilationUnit) node).pathName()).orElse(name);
+                break;
+            }
+        }
+
+        return new FileArtifact(artifact.getRevision(), name, artifact.astnode.prettyPrint());
+    }
+
     @Override
     public final String toString() {
         return astnode.getMatchingRepresentation();
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.ast;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import de.fosd.jdime.artifact.file.FileArtifact;
+import org.extendj.ast.ClassSource;
+import org.extendj.ast.CompilationUnit;
+import org.extendj.ast.PathPart;
+import org.extendj.ast.Program;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A <code>ClassSource</code> providing ExtendJ with the content of a <code>FileArtifact</code> from memory. This
+ * allows parsing <code>FileArtifact</code>s whose content was never written to (or differs from) the file they
+ * represent. The path of the file is still reported to ExtendJ as the name of the source since it is stored in the
+ * AST (e.g. for the conflict markers when pretty printing).
+ */
+final class ContentClassSource extends ClassSource {
+
+    /**
+     * The <code>PathPart</code> of a <code>ContentClassSource</code>. It never finds any sources itself but makes the
+     * package of the parsed compilation unit (and its enclosing packages) known to the <code>Program</code> like
+     * {@link Program#addSourceFile(String)} does for files.
+     */
+    private static final class ContentPath extends PathPart {
+
+        private String packageName = "";
+
+        private ContentPath() {
+            super(true);
+        }
+
+        @Override
+        public String getPath() {
+            return "";
+        }
+
+        @Override
+        public boolean hasPackage(String name) {
+            return !name.isEmpty() && (packageName.equals(name) || packageName.startsWith(name + '.'));
+        }
+    }
+
+    private final String path;
+    private final String content;
+
+    /**
+     * Constructs a new <code>ContentClassSource</code> for the given content of a <code>FileArtifact</code>.
+     *
+     * @param artifact
+     *         the <code>FileArtifact</code> whose content is to be parsed
+     * @param content
+     *         the content of <code>artifact</code> (see {@link FileArtifact#getContent()})
+     */
+    ContentClassSource(FileArtifact artifact, String content) {
+        super(new ContentPath());
+
+        this.path = artifact.getFile().getPath();
+        this.content = content;
+    }
+
+    @Override
+    public long lastModified() {
+        return 0;
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+        return new ByteArrayInputStream(content.getBytes(UTF_8));
+    }
+
+    @Override
+    public String pathName() {
+        return path;
+    }
+
+    /**
+     * Parses the content and adds the resulting <code>CompilationUnit</code> to the given <code>Program</code>.
+     *
+     * @param program
+     *         the <code>Program</code> to add the <code>CompilationUnit</code> to
+     * @throws IOException
+     *         if there is an exception parsing the content
+     */
+    void addTo(Program program) throws IOException {
+        CompilationUnit cu = parseCompilationUnit(program);
+        ContentPath contentPath = (ContentPath) getSourcePath();
+
+        contentPath.packageName = cu.packageName();
+        program.addClassPath(contentPath);
+        program.addCompilationUnit(cu);
+    }
+}
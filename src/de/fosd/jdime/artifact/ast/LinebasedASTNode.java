@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.ast;
+
+import java.util.regex.Pattern;
+
+import de.fosd.jdime.util.parser.Content;
+import org.extendj.ast.ASTNode;
+import org.jastadd.util.PrettyPrinter;
+
+/**
+ * An {@link ASTNode} without children that pretty prints a fixed piece of code. It replaces the subtree of a
+ * declaration whose structured merge failed by the result of merging the code of the declaration line based (see
+ * {@link de.fosd.jdime.config.merge.MergeContext#isSubtreeFallback()}). Since it is not a subclass of the replaced
+ * <code>ASTNode</code>, it may only be used as a child of an {@link org.extendj.ast.List}, whose children are printed
+ * without being cast to their declared type.
+ */
+public class LinebasedASTNode extends ASTNode<ASTNode<?>> {
+
+    private static final Pattern LINES = Pattern.compile("\\R");
+
+    private String content;
+
+    /**
+     * Constructs a new {@link LinebasedASTNode} printing the given {@code content}.
+     *
+     * @param content
+     *         the code to print
+     */
+    public LinebasedASTNode(String content) {
+        this.content = content;
+    }
+
+    @Override
+    public void prettyPrint(PrettyPrinter out) {
+        String[] lines = LINES.split(content.trim());
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+
+            if (i > 0) {
+                out.println();
+            }
+
+            if (isConflictMarker(line)) {
+                out.printNoIndent(line); // conflict markers must start at the beginning of the line
+            } else if (!line.isEmpty()) {
+                out.print(line);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the given <code>line</code> is a conflict marker produced by a line based merge.
+     *
+     * @param line
+     *         the line to check
+     * @return true iff <code>line</code> starts with a conflict marker
+     */
+    private static boolean isConflictMarker(String line) {
+        return line.startsWith(Content.Conflict.CONFLICT_START) || line.startsWith(Content.Conflict.CONFLICT_DELIM)
+                || line.startsWith(Content.Conflict.CONFLICT_END);
+    }
+}
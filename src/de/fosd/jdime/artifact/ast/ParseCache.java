@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.ast;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+import de.fosd.jdime.artifact.file.FileArtifact;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.extendj.ast.ASTNode;
+
+/**
+ * A least recently used cache of the ExtendJ ASTs parsed from files. The cache is keyed by the path of the parsed
+ * file and a hash of its content. The path is part of the key because ExtendJ stores it in the AST (it is used e.g.
+ * for the conflict markers when pretty printing). The cache stores snapshots of the ASTs that are never handed out or
+ * modified. Every lookup returns a new copy of the snapshot (see {@link ASTNode#treeCopyNoTransform()}), which is
+ * considerably cheaper than parsing the file again.
+ * <p>
+ * The cache is bounded by the total length of the contents of the files whose ASTs it contains (see
+ * {@link #setMaxSize(int)}). Additionally, the snapshots are only softly reachable and may therefore be reclaimed by
+ * the garbage collector if memory runs low.
+ */
+public final class ParseCache {
+
+    private static final Logger LOG = Logger.getLogger(ParseCache.class.getCanonicalName());
+
+    /**
+     * The default value for {@link #maxSize}.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1 << 20;
+
+    /**
+     * A cached AST.
+     */
+    private static final class Entry {
+
+        private final SoftReference<ASTNode<?>> snapshot;
+        private final int size;
+
+        private Entry(ASTNode<?> snapshot, int size) {
+            this.snapshot = new SoftReference<>(snapshot);
+            this.size = size;
+        }
+    }
+
+    /**
+     * The cached ASTs in access order.
+     */
+    private static final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The maximum total length of the contents of the files whose ASTs are cached.
+     */
+    private static int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * The current total length of the contents of the files whose ASTs are cached.
+     */
+    private static long size = 0;
+
+    /**
+     * Utility class.
+     */
+    private ParseCache() {}
+
+    /**
+     * Sets the maximum total length (in characters) of the contents of the files whose ASTs are cached. A value of
+     * zero (or less) disables the cache. Cached ASTs are evicted as necessary.
+     *
+     * @param maxSize
+     *         the new maximum size
+     */
+    public static synchronized void setMaxSize(int maxSize) {
+        ParseCache.maxSize = maxSize;
+        evict();
+    }
+
+    /**
+     * Removes all cached ASTs.
+     */
+    public static synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns a copy of the cached AST for the given <code>artifact</code> or applies the given <code>parser</code>
+     * and caches a snapshot of the resulting AST. Concurrent calls may parse the same <code>artifact</code> more
+     * than once, the cache then keeps the snapshot of the last one.
+     *
+     * @param artifact
+     *         the <code>FileArtifact</code> to parse
+     * @param content
+     *         the content of <code>artifact</code> (see {@link FileArtifact#getContent()})
+     * @param parser
+     *         the parser to use if there is no cached AST for <code>artifact</code>
+     * @return the AST
+     */
+    static ASTNode<?> parse(FileArtifact artifact, String content,
+                            BiFunction<FileArtifact, String, ASTNode<?>> parser) {
+
+        synchronized (ParseCache.class) {
+
+            if (maxSize <= 0 || content.length() > maxSize) {
+                return parser.apply(artifact, content);
+            }
+        }
+
+        String key = artifact.getFile().getPath() + ':' + DigestUtils.sha256Hex(content);
+        ASTNode<?> snapshot;
+
+        synchronized (ParseCache.class) {
+            Entry entry = entries.get(key);
+            snapshot = entry != null ? entry.snapshot.get() : null;
+
+            if (entry != null && snapshot == null) {
+                entries.remove(key);
+                size -= entry.size;
+            }
+        }
+
+        if (snapshot != null) {
+            LOG.finer(() -> "Using the cached AST of " + artifact);
+            return snapshot.treeCopyNoTransform();
+        }
+
+        ASTNode<?> astNode = parser.apply(artifact, content);
+        Entry entry = new Entry(astNode.treeCopyNoTransform(), content.length());
+
+        synchronized (ParseCache.class) {
+            Entry old = entries.put(key, entry);
+
+            if (old != null) {
+                size -= old.size;
+            }
+
+            size += entry.size;
+            evict();
+        }
+
+        return astNode;
+    }
+
+    /**
+     * Removes the least recently used ASTs until the {@link #size} of the cache is at most {@link #maxSize}.
+     */
+    private static void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+
+        while (size > Math.max(maxSize, 0) && it.hasNext()) {
+            size -= it.next().size;
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.ast;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOError;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.security.Permission;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.extendj.ast.ASTNode;
+import org.extendj.ast.ASTState;
+import org.extendj.ast.Program;
+
+/**
+ * Isolates concurrent parses from the parts of ExtendJ that are shared between all ASTs or that may terminate the
+ * JVM. Every AST that is to be parsed must have a <code>Program</code> obtained from {@link #newProgram()} as its
+ * root.
+ * <p>
+ * ExtendJ keeps the state of its attribute evaluation (which is also used by the rewrites resolved while parsing)
+ * in a static field of {@link ASTNode}. When this class is initialized, that state is replaced by one that keeps a
+ * separate evaluation state for every thread (see {@link ThreadConfinedState}). ASTs may therefore be parsed and
+ * their attributes evaluated from multiple threads concurrently as long as no two threads access the same AST.
+ * <p>
+ * ExtendJ calls {@link System#exit(int)} if reading or parsing the class file of a nested library type fails with an
+ * exception. The <code>Program</code>s returned by {@link #newProgram()} hand out class files through a stream that
+ * reports read errors (including a truncated class file) as an {@link IOError}, which ExtendJ does not catch. The
+ * error is thrown to the thread that caused the class file to be read. While parsing, {@link ASTNodeArtifact}
+ * reports it like any other parse error.
+ * <p>
+ * Exceptions thrown by ExtendJ while parsing a malformed class file still lead to the call of
+ * {@link System#exit(int)}. Code using ExtendJ is therefore executed in an isolation scope obtained from
+ * {@link #enter()}. Attempts to exit the JVM from within such a scope cause a {@link SecurityException} to be thrown
+ * in the calling thread instead. The {@link SecurityManager} used for this is installed once and only checks whether
+ * the current thread is in an isolation scope, which makes it safe to use the scopes from any number of threads
+ * concurrently.
+ */
+public final class ParserIsolation {
+
+    private static final Logger LOG = Logger.getLogger(ParserIsolation.class.getCanonicalName());
+
+    /**
+     * Whether the current thread is in an isolation scope.
+     */
+    private static final ThreadLocal<Boolean> isolated = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Whether the {@link ExitGuard} is installed.
+     */
+    private static final boolean guarded;
+
+    /**
+     * An <code>ASTState</code> that delegates to a separate <code>ASTState</code> for every thread. The delegates
+     * are instances of this class themselves, which allows calling their (protected) methods.
+     * <p>
+     * Every <code>ASTState</code> starts out with a reference to the same static bottom element of the stack of
+     * circular evaluations, which is then mutated when entering and leaving lazy attributes. The delegates therefore
+     * push a stack element of their own upon creation and treat it as their bottom element.
+     */
+    static final class ThreadConfinedState extends ASTState {
+
+        private final ThreadLocal<ThreadConfinedState> local;
+        private CircleState bottom;
+
+        /**
+         * Constructs a new shared <code>ThreadConfinedState</code>.
+         */
+        private ThreadConfinedState() {
+            this.local = ThreadLocal.withInitial(ThreadConfinedState::newDelegate);
+        }
+
+        /**
+         * Constructs a new delegate for the thread it is created in.
+         *
+         * @param ignored
+         *         distinguishes this constructor from the one for the shared state
+         */
+        private ThreadConfinedState(Void ignored) {
+            this.local = null;
+            reset();
+        }
+
+        private static ThreadConfinedState newDelegate() {
+            return new ThreadConfinedState(null);
+        }
+
+        private ThreadConfinedState delegate() {
+            return local.get();
+        }
+
+        @Override
+        protected boolean inCircle() {
+            return local != null ? delegate().inCircle() : super.currentCircle() != bottom;
+        }
+
+        @Override
+        protected boolean calledByLazyAttribute() {
+            return local != null ? delegate().calledByLazyAttribute() : super.calledByLazyAttribute();
+        }
+
+        @Override
+        protected void enterLazyAttribute() {
+
+            if (local != null) {
+                delegate().enterLazyAttribute();
+            } else {
+                super.enterLazyAttribute();
+            }
+        }
+
+        @Override
+        protected void leaveLazyAttribute() {
+
+            if (local != null) {
+                delegate().leaveLazyAttribute();
+            } else {
+                super.leaveLazyAttribute();
+            }
+        }
+
+        @Override
+        protected void enterCircle() {
+
+            if (local != null) {
+                delegate().enterCircle();
+            } else {
+                super.enterCircle();
+            }
+        }
+
+        @Override
+        protected void leaveCircle() {
+
+            if (local != null) {
+                delegate().leaveCircle();
+            } else {
+                super.leaveCircle();
+            }
+        }
+
+        @Override
+        protected Cycle nextCycle() {
+            return local != null ? delegate().nextCycle() : super.nextCycle();
+        }
+
+        @Override
+        protected Cycle cycle() {
+            return local != null ? delegate().cycle() : super.cycle();
+        }
+
+        @Override
+        protected CircleState currentCircle() {
+            return local != null ? delegate().currentCircle() : super.currentCircle();
+        }
+
+        @Override
+        protected void setChangeInCycle() {
+
+            if (local != null) {
+                delegate().setChangeInCycle();
+            } else {
+                super.setChangeInCycle();
+            }
+        }
+
+        @Override
+        protected boolean testAndClearChangeInCycle() {
+            return local != null ? delegate().testAndClearChangeInCycle() : super.testAndClearChangeInCycle();
+        }
+
+        @Override
+        protected boolean changeInCycle() {
+            return local != null ? delegate().changeInCycle() : super.changeInCycle();
+        }
+
+        @Override
+        public void reset() {
+
+            if (local != null) {
+                delegate().reset();
+            } else {
+                super.reset();
+                super.enterCircle();
+                bottom = super.currentCircle();
+            }
+        }
+    }
+
+    /**
+     * A {@link SecurityManager} that prevents threads in an isolation scope from exiting the JVM. All other checks are
+     * delegated to the {@link SecurityManager} that was installed before (if any).
+     */
+    private static final class ExitGuard extends SecurityManager {
+
+        private final SecurityManager delegate;
+
+        private ExitGuard(SecurityManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void checkPermission(Permission perm) {
+
+            if (delegate != null) {
+                delegate.checkPermission(perm);
+            }
+        }
+
+        @Override
+        public void checkPermission(Permission perm, Object context) {
+
+            if (delegate != null) {
+                delegate.checkPermission(perm, context);
+            }
+        }
+
+        @Override
+        public void checkExit(int status) {
+
+            if (isolated.get()) {
+                throw new SecurityException("Captured attempt to exit JVM.");
+            }
+
+            if (delegate != null) {
+                delegate.checkExit(status);
+            }
+        }
+    }
+
+    /**
+     * An isolation scope. Closing the scope restores the state the current thread was in before entering it.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final boolean wasIsolated;
+
+        private Scope(boolean wasIsolated) {
+            this.wasIsolated = wasIsolated;
+        }
+
+        @Override
+        public void close() {
+            isolated.set(wasIsolated);
+        }
+    }
+
+    /**
+     * A <code>Program</code> handing out class files through {@link ClassfileStream}s.
+     */
+    private static final class IsolatedProgram extends Program {
+
+        @Override
+        public InputStream getInputStream(String name) {
+            InputStream in = super.getInputStream(name);
+            return in != null ? new ClassfileStream(in, name) : null;
+        }
+
+        @Override
+        public String getMatchingRepresentation() {
+            return Program.class.getSimpleName() + getTokens();
+        }
+    }
+
+    /**
+     * An <code>InputStream</code> for a class file that throws an {@link IOError} instead of an
+     * <code>IOException</code> if reading fails and when reading beyond the end of the class file. ExtendJ reads
+     * class files from the beginning to their (known) end and never reads past it.
+     */
+    static final class ClassfileStream extends FilterInputStream {
+
+        private final String name;
+
+        /**
+         * Constructs a new <code>ClassfileStream</code> reading the class file <code>name</code> from
+         * <code>in</code>.
+         *
+         * @param in
+         *         the stream to read the class file from
+         * @param name
+         *         the name of the class file
+         */
+        ClassfileStream(InputStream in, String name) {
+            super(in);
+            this.name = name;
+        }
+
+        @Override
+        public int read() {
+            int b;
+
+            try {
+                b = super.read();
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+
+            if (b == -1) {
+                throw new IOError(new EOFException("Unexpected end of class file " + name));
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+
+            if (len == 0) {
+                return 0;
+            }
+
+            int read;
+
+            try {
+                read = super.read(b, off, len);
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+
+            if (read == -1) {
+                throw new IOError(new EOFException("Unexpected end of class file " + name));
+            }
+
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+
+            try {
+                return super.skip(n);
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+        }
+    }
+
+    static {
+        try {
+            Field state = ASTNode.class.getDeclaredField("state");
+
+            state.setAccessible(true);
+            state.set(null, new ThreadConfinedState());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not replace the attribute evaluation state of ExtendJ.", e);
+        }
+
+        boolean installed;
+
+        try {
+            LOG.fine("Installing a SecurityManager preventing ExtendJ from exiting the JVM.");
+            System.setSecurityManager(new ExitGuard(System.getSecurityManager()));
+            installed = true;
+        } catch (SecurityException | UnsupportedOperationException e) {
+            LOG.log(Level.WARNING, e, () -> "Could not install a SecurityManager preventing ExtendJ from exiting " +
+                                            "the JVM. Parsing malformed library class files may terminate JDime.");
+            installed = false;
+        }
+
+        guarded = installed;
+    }
+
+    /**
+     * Utility class.
+     */
+    private ParserIsolation() {}
+
+    /**
+     * Returns a new <code>Program</code> to parse a compilation unit into.
+     *
+     * @return the new <code>Program</code>
+     */
+    static Program newProgram() {
+        return new IsolatedProgram();
+    }
+
+    /**
+     * Enters an isolation scope for the current thread. Use in a try-with-resources statement.
+     *
+     * @return the <code>Scope</code> to close after the isolated code was executed
+     */
+    public static Scope enter() {
+        Scope scope = new Scope(isolated.get());
+        isolated.set(true);
+
+        return scope;
+    }
+
+    /**
+     * Returns whether attempts to exit the JVM from within an isolation scope are prevented. This is not the case
+     * if the JVM does not allow installing a <code>SecurityManager</code>.
+     *
+     * @return true iff the exit guard is installed
+     */
+    static boolean isExitGuarded() {
+        return guarded;
+    }
+}
@@ -23,7 +23,7 @@
  */
 package de.fosd.jdime.artifact.ast;
 
-import java.nio.CharBuffer;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import beaver.Symbol;
@@ -33,14 +33,14 @@ import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.config.merge.MergeScenario;
 import de.fosd.jdime.config.merge.Revision;
 import de.fosd.jdime.operations.MergeOperation;
-import de.fosd.jdime.strategy.LinebasedStrategy;
+import de.fosd.jdime.strategy.SemiStructuredStrategy;
+import de.fosd.jdime.util.LineIndex;
 import org.extendj.ast.ASTNode;
 import org.extendj.ast.Block;
 import org.extendj.ast.ConstructorDecl;
 import org.extendj.ast.Opt;
 import org.extendj.ast.Stmt;
 
-import static de.fosd.jdime.artifact.file.FileArtifact.FileType.FILE;
 import static de.fosd.jdime.config.merge.MergeType.THREEWAY;
 import static de.fosd.jdime.stats.KeyEnums.Type.METHOD;
 import static java.util.regex.Pattern.MULTILINE;
@@ -53,8 +53,6 @@ public class SemiStructuredArtifact extends ASTNodeArtifact {
 
     private static final Pattern BRACES = Pattern.compile("\\A\\s*\\{\\R?|(?:\\R^\\h*)?\\}\\s*\\z", MULTILINE);
 
-    private static final LinebasedStrategy linebased = new LinebasedStrategy();
-
     /**
      * Thrown if an {@link ASTNodeArtifact} can not be replaced by a {@link SemiStructuredArtifact}.
      */
@@ -82,25 +80,30 @@ public class SemiStructuredArtifact extends ASTNodeArtifact {
      * <p>
      * Currently this {@link Artifact} can only replace {@link ASTNodeArtifact} containing {@link Block} AST nodes.
      *
+     * The encapsulated code is held in memory by a virtual {@link FileArtifact} named like the {@code original} file.
+     *
      * @param toEncapsulate
      *         the {@link ASTNodeArtifact} to encapsulate
+     * @param original
+     *         the original source code file of which the {@code toEncapsulate} {@link Artifact} represents a part of
      * @param originalLines
-     *         the lines (including line separators) of the original source code file of which the {@code toEncapsulate}
-     *         {@link Artifact} represents a part of
+     *         the {@link LineIndex} of the content of the {@code original} file
      * @throws NotReplaceableException
      *         if the {@link ASTNode} contained in {@code toEncapsulate} is not assignable to
      *         a {@link Block} or its original source code can not be determined; the tree containing
      *         {@code toEncapsulate} is not changed if this {@link Exception} is thrown
      */
-    public SemiStructuredArtifact(ASTNodeArtifact toEncapsulate, String[] originalLines) throws NotReplaceableException {
+    public SemiStructuredArtifact(ASTNodeArtifact toEncapsulate, FileArtifact original, LineIndex originalLines)
+            throws NotReplaceableException {
+
         super(toEncapsulate);
 
         if (!Block.class.isAssignableFrom(toEncapsulate.astnode.getClass())) {
             throw new NotReplaceableException("Can only replace ASTNodeArtifacts containing 'Block' AST nodes.");
         }
 
-        this.content = new FileArtifact(getRevision(), FILE);
-        this.content.setContent(extractOriginalContent(originalLines));
+        String name = original.getFile().getPath();
+        this.content = new FileArtifact(getRevision(), name, extractOriginalContent(originalLines));
 
         this.astnode = new SemiStructuredASTNode(this);
 
@@ -137,7 +140,7 @@ public class SemiStructuredArtifact extends ASTNodeArtifact {
      */
     private SemiStructuredArtifact(Revision revision) {
         super(revision);
-        this.content = new FileArtifact(revision, FILE);
+        this.content = new FileArtifact(revision, "", "");
     }
 
     /**
@@ -151,6 +154,8 @@ public class SemiStructuredArtifact extends ASTNodeArtifact {
         super(toCopy);
 
         this.content = toCopy.content.copy();
+
+        ownASTNode();
         ((SemiStructuredASTNode) this.astnode).setArtifact(this);
     }
 
@@ -158,13 +163,13 @@ public class SemiStructuredArtifact extends ASTNodeArtifact {
      * Extracts the original code that produced the sub-AST under the node stored in this {@link SemiStructuredArtifact}
      *
      * @param lines
-     *         the lines (including line separators) of the original source code file
+     *         the {@link LineIndex} of the original source code file
      * @return the original code
      * @throws NotReplaceableException
      *         if the original source file region (as determined by {@link ASTNode#getStart()}
      *         and {@link ASTNode#getEnd()}) is invalid (e.g. empty)
      */
-    private String extractOriginalContent(String[] lines) throws NotReplaceableException {
+    private String extractOriginalContent(LineIndex lines) throws NotReplaceableException {
         final int startLine;
         final int startCol;
 
@@ -188,55 +193,31 @@ public class SemiStructuredArtifact extends ASTNodeArtifact {
             throw new NotReplaceableException(msg);
         }
 
-        String content;
+        int start;
+        int end;
 
-        if (startLine == endLine) {
-            content = lines[startLine].substring(startCol, endCol + 1);
-        } else {
-            content = multiLineContent(lines, startLine, startCol, endLine, endCol);
+        try {
+            start = lines.offset(startLine, startCol);
+            end = lines.offset(endLine, endCol + 1);
+        } catch (IndexOutOfBoundsException e) {
+            String msg = String.format("Source file region out of bounds. (Line, Column) Start: (%d,%d) End: (%d,%d)",
+                                        startLine, startCol, endLine, endCol);
+            throw new NotReplaceableException(msg);
         }
 
-        content = BRACES.matcher(content).replaceAll("");
+        StringBuilder content = new StringBuilder(startCol + end - start);
 
-        return content;
-    }
+        if (startLine != endLine) {
 
-    /**
-     * Returns the region of the original source code specified by {@code startLine, startCol, endLine, endCol}.
-     *
-     * @param lines
-     *         the lines (including line separators) of the original source code file
-     * @param startLine
-     *         the first line of the region
-     * @param startCol
-     *         the first column in the first line of the region
-     * @param endLine
-     *         the last line of the region
-     * @param endCol
-     *         the last column of the last line of the region
-     * @return the original source code region
-     */
-    private String multiLineContent(String[] lines, int startLine, int startCol, int endLine, int endCol) {
-        StringBuilder builder = new StringBuilder();
-
-        for (int line = startLine; line <= endLine; line++) {
-            String theLine = lines[line];
-
-            if (line == startLine) {
-                if (startCol > 0) {
-                    builder.append(CharBuffer.allocate(startCol).toString().replace('\0', ' '));
-                    builder.append(theLine.substring(startCol));
-                } else {
-                    builder.append(theLine);
-                }
-            } else if (line == endLine) {
-                builder.append(lines[line].substring(0, endCol + 1));
-            } else {
-                builder.append(lines[line]);
+            // Indent the first line like the others by replacing the code before the region with spaces.
+            for (int i = 0; i < startCol; i++) {
+                content.append(' ');
             }
         }
 
-        return builder.toString();
+        content.append(lines.getText(), start, end);
+
+        return BRACES.matcher(content).replaceAll("");
     }
 
     /**
@@ -295,6 +276,12 @@ public class SemiStructuredArtifact extends ASTNodeArtifact {
 
         MergeScenario<FileArtifact> fileMergeScenario = new MergeScenario<>(THREEWAY, left.content, base.content, right.content);
         MergeOperation<FileArtifact> fileMerge = new MergeOperation<>(fileMergeScenario, target.content);
-        linebased.merge(fileMerge, context);
+        List<MergeOperation<FileArtifact>> deferred = context.getDeferredBlockMerges();
+
+        if (deferred != null) {
+            deferred.add(fileMerge);
+        } else {
+            SemiStructuredStrategy.mergeBlock(fileMerge, context);
+        }
     }
 }
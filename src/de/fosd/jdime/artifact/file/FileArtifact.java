@@ -30,13 +30,20 @@ import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
@@ -59,6 +66,7 @@ import de.fosd.jdime.operations.MergeOperation;
 import de.fosd.jdime.stats.ElementStatistics;
 import de.fosd.jdime.stats.KeyEnums;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
+import de.fosd.jdime.stats.Statistics;
 import de.fosd.jdime.stats.StatisticsInterface;
 import de.fosd.jdime.strategy.LinebasedStrategy;
 import de.fosd.jdime.strategy.MergeStrategy;
@@ -143,11 +151,25 @@ public class FileArtifact extends Artifact<FileArtifact> {
     private File file;
 
     /**
-     * The content of this {@link FileArtifact}. The content will be retrieved from the {@link #original} {@link File}
-     * and written back to the {@link #file} after the merge.
+     * The content of this {@link FileArtifact} if it was set explicitly. Such content is written to the {@link #file}
+     * after the merge.
      */
     private String content;
 
+    /**
+     * The UTF-8 encoded content of this {@link FileArtifact} if it was not set explicitly. It is read from the
+     * {@link #original} {@link File} when it is first needed and decoded whenever characters are requested (see
+     * {@link #getContent()}). Content read from the {@link #original} {@link File} can be released using
+     * {@link #releaseContent()}.
+     */
+    private volatile byte[] bytes;
+
+    /**
+     * Whether this {@link FileArtifact} is virtual and its {@link #content} is held in memory only. Such
+     * {@link FileArtifact FileArtifacts} are considered to exist even though their {@link #file} does not.
+     */
+    private final boolean inMemory;
+
     /**
      * Constructs a new <code>FileArtifact</code> representing the given <code>File</code>. If <code>file</code> is a
      * directory then <code>FileArtifact</code>s representing its contents will be added as children to this
@@ -215,6 +237,7 @@ public class FileArtifact extends Artifact<FileArtifact> {
 
         this.original = file;
         this.file = file;
+        this.inMemory = false;
 
         if (recursive && isDirectory()) {
             modifyChildren(children -> {
@@ -239,6 +262,7 @@ public class FileArtifact extends Artifact<FileArtifact> {
 
         this.type = type;
         this.original = null;
+        this.inMemory = false;
 
         File tempDir = FileUtils.getTempDirectory();
         IntFunction<File> toFile;
@@ -261,6 +285,52 @@ public class FileArtifact extends Artifact<FileArtifact> {
                 .orElseThrow(() -> new AbortException("Could not find an available file name for the virtual file or directory."));
     }
 
+    /**
+     * Constructs a new virtual {@link FileArtifact} representing a file with the given {@code name} whose content is
+     * held in memory. The file is neither read nor written for the merge, which makes this constructor suitable for
+     * merging contents that do not exist on disk (e.g. when JDime is used as a library or merge driver). The
+     * {@code name} should end in {@code .java} for the {@link FileArtifact} to be merged as Java source code (see
+     * {@link #isJavaFile()}). The new {@link FileArtifact} will always have the number 0.
+     *
+     * @param revision
+     *         the {@link Revision} the artifact belongs to
+     * @param name
+     *         the name (or path) of the file, it does not have to exist
+     * @param content
+     *         the content of the file
+     */
+    public FileArtifact(Revision revision, String name, CharSequence content) {
+        super(revision, 0);
+
+        this.type = FileType.FILE;
+        this.original = null;
+        this.file = new File(name);
+        this.content = content.toString();
+        this.inMemory = true;
+    }
+
+    /**
+     * Constructs a new virtual {@link FileArtifact} representing a file with the given {@code name} whose UTF-8
+     * encoded content is held in memory.
+     *
+     * @param revision
+     *         the {@link Revision} the artifact belongs to
+     * @param name
+     *         the name (or path) of the file, it does not have to exist
+     * @param content
+     *         the UTF-8 encoded content of the file
+     * @see #FileArtifact(Revision, String, CharSequence)
+     */
+    public FileArtifact(Revision revision, String name, byte[] content) {
+        super(revision, 0);
+
+        this.type = FileType.FILE;
+        this.original = null;
+        this.file = new File(name);
+        this.bytes = content;
+        this.inMemory = true;
+    }
+
     /**
      * Copies the given {@link FileArtifact} detached from its tree.
      *
@@ -275,6 +345,8 @@ public class FileArtifact extends Artifact<FileArtifact> {
         this.original = toCopy.original;
         this.file = toCopy.file;
         this.content = toCopy.content;
+        this.bytes = toCopy.bytes;
+        this.inMemory = toCopy.inMemory;
     }
 
     @Override
@@ -309,6 +381,21 @@ public class FileArtifact extends Artifact<FileArtifact> {
         return new FileArtifact(this);
     }
 
+    /**
+     * Returns a copy of this {@link FileArtifact} that is written to the given <code>file</code> by
+     * {@link #writeContent()}. If no content is set for the copy, the {@link #original} {@link File} is copied.
+     *
+     * @param file
+     *         the {@link File} to write the copy to
+     * @return the copy
+     */
+    FileArtifact copyTo(File file) {
+        FileArtifact copy = new FileArtifact(this);
+        copy.file = file;
+
+        return copy;
+    }
+
     @Override
     public FileArtifact createEmptyArtifact(Revision revision) {
         return new FileArtifact(revision, FileType.FILE);
@@ -321,7 +408,7 @@ public class FileArtifact extends Artifact<FileArtifact> {
 
     @Override
     public boolean exists() {
-        return getFile().exists();
+        return inMemory || getFile().exists();
     }
 
     /**
@@ -454,7 +541,23 @@ public class FileArtifact extends Artifact<FileArtifact> {
     @Override
     protected String hashId() {
         if (isFile()) {
-            return DigestUtils.sha256Hex(file.getName() + getContent());
+            String digest = "";
+
+            if (content != null) {
+                digest = DigestUtils.sha256Hex(content);
+            } else if (bytes != null) {
+                digest = DigestUtils.sha256Hex(bytes);
+            } else if (original != null) {
+
+                // The digests of unchanged files are cached across merges (and runs) by the FileDigestCache.
+                try {
+                    digest = FileDigestCache.digest(original);
+                } catch (IOException e) {
+                    LOG.log(Level.WARNING, e, () -> "Could not read the contents of " + this);
+                }
+            }
+
+            return DigestUtils.sha256Hex(file.getName()) + digest;
         } else {
             return DigestUtils.sha256Hex(file.getName());
         }
@@ -572,7 +675,7 @@ public class FileArtifact extends Artifact<FileArtifact> {
         if (isDirectory()) {
             return !hasChildren();
         } else {
-            return "".equals(getContent());
+            return length() == 0;
         }
     }
 
@@ -623,14 +726,28 @@ public class FileArtifact extends Artifact<FileArtifact> {
         if (isDirectory()) {
             Merge<FileArtifact> merge = new Merge<>();
 
-            if (context.hasStatistics()) {
-                context.getStatistics().setCurrentFileMergeScenario(operation.getMergeScenario());
-            }
+            context.setCurrentScenario(operation.getMergeScenario());
 
             LOG.finest(() -> "Merging directories " + operation.getMergeScenario());
-            merge.merge(operation, context);
+
+            if (context.isStreamingDirectories() && StreamingDirectoryMerge.supports(operation, context)) {
+                StreamingDirectoryMerge.merge(operation, context);
+            } else if (context.getThreads() > 1 && context.getDeferredFileMerges() == null) {
+                List<MergeOperation<FileArtifact>> fileMerges = new ArrayList<>();
+
+                context.setDeferredFileMerges(fileMerges);
+
+                try {
+                    merge.merge(operation, context);
+                } finally {
+                    context.setDeferredFileMerges(null);
+                }
+
+                mergeFilesConcurrently(fileMerges, context);
+            } else {
+                merge.merge(operation, context);
+            }
         } else {
-            MergeStrategy<FileArtifact> strategy = context.getMergeStrategy();
             MergeScenario<FileArtifact> scenario = operation.getMergeScenario();
 
             if (!isJavaFile()) {
@@ -638,49 +755,181 @@ public class FileArtifact extends Artifact<FileArtifact> {
                 return;
             }
 
-            if (context.hasStatistics()) {
-                context.getStatistics().setCurrentFileMergeScenario(scenario);
+            context.setCurrentScenario(scenario);
+
+            List<MergeOperation<FileArtifact>> deferred = context.getDeferredFileMerges();
+
+            if (deferred != null) {
+                LOG.finest(() -> "Deferring the merge of " + scenario);
+                deferred.add(operation);
+            } else {
+                mergeFile(operation, context);
             }
+        }
+    }
 
-            try {
-                try {
-                    strategy.merge(operation, context);
-                } catch (Throwable e) {
+    /**
+     * Merges the files of the given <code>MergeOperation</code> using the <code>MergeStrategy</code> of the
+     * <code>context</code>. If the strategy fails, the crash is recorded in the <code>context</code> and, depending
+     * on the configuration, the merge is aborted, the scenario is skipped, or the merge falls back to the line based
+     * strategy.
+     *
+     * @param operation
+     *         the file level <code>MergeOperation</code>
+     * @param context
+     *         the <code>MergeContext</code>
+     */
+    void mergeFile(MergeOperation<FileArtifact> operation, MergeContext context) {
+        MergeStrategy<FileArtifact> strategy = context.getMergeStrategy();
+        MergeScenario<FileArtifact> scenario = operation.getMergeScenario();
 
-                    if (context.hasStatistics()) {
-                        context.getStatistics().getScenarioStatistics(scenario).setStatus(FAILED);
-                    }
+        try {
+            try {
+                strategy.merge(operation, context);
+            } catch (Throwable e) {
 
-                    throw e;
+                if (context.hasStatistics()) {
+                    context.getStatistics().getScenarioStatistics(scenario).setStatus(FAILED);
                 }
-            } catch (AbortException e) {
-                throw e; // AbortExceptions must always cause the merge to be aborted
-            } catch (RuntimeException e) {
-                context.addCrash(scenario, e);
 
-                LOG.log(SEVERE, e, () -> {
-                    String ls = System.lineSeparator();
-                    String scStr = operation.getMergeScenario().toString(ls, true);
-                    return String.format("Exception while merging%n%s", scStr);
-                });
+                throw e;
+            }
+        } catch (AbortException e) {
+            throw e; // AbortExceptions must always cause the merge to be aborted
+        } catch (RuntimeException e) {
+            context.addCrash(scenario, e);
+
+            LOG.log(SEVERE, e, () -> {
+                String ls = System.lineSeparator();
+                String scStr = operation.getMergeScenario().toString(ls, true);
+                return String.format("Exception while merging%n%s", scStr);
+            });
 
-                if (context.isExitOnError()) {
-                    throw new AbortException(e);
+            if (context.isExitOnError()) {
+                throw new AbortException(e);
+            } else {
+
+                if (!context.isKeepGoing() && !(strategy instanceof LinebasedStrategy)) {
+                    LOG.severe(() -> "Falling back to line based strategy.");
+
+                    context.setMergeStrategy(MergeStrategy.parse(MergeStrategy.LINEBASED).get());
+                    merge(operation, context);
                 } else {
+                    LOG.severe(() -> "Skipping " + scenario);
+                }
+            }
+        } finally {
+            scenario.getArtifacts().values().forEach(FileArtifact::releaseContent);
+        }
+    }
+
+    /**
+     * Merges the files of the given <code>MergeOperation</code>s using a pool of {@link MergeContext#getThreads()}
+     * threads. The largest scenarios are started first. Every file is merged using its own copy of the
+     * <code>context</code> whose statistics and crashes are added to the <code>context</code> in the order of
+     * <code>fileMerges</code> once all merges are finished. This also means that falling back to the line based
+     * strategy only affects the file whose merge failed. If one of the merges aborts, the remaining ones are cancelled
+     * (see {@link MergeContext#cancel()}) and the exception that caused the abort is rethrown.
+     *
+     * @param fileMerges
+     *         the file level <code>MergeOperation</code>s to apply
+     * @param context
+     *         the <code>MergeContext</code>
+     */
+    static void mergeFilesConcurrently(List<MergeOperation<FileArtifact>> fileMerges, MergeContext context) {
+
+        if (fileMerges.isEmpty()) {
+            return;
+        }
+
+        MergeContext template = context.forkCancellable();
+
+        List<MergeOperation<FileArtifact>> schedule = new ArrayList<>(fileMerges);
+        schedule.sort(Comparator.comparingLong(FileArtifact::size).reversed());
 
-                    if (!context.isKeepGoing() && !(strategy instanceof LinebasedStrategy)) {
-                        LOG.severe(() -> "Falling back to line based strategy.");
+        int numThreads = Math.min(context.getThreads(), schedule.size());
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread thread = new Thread(r, "JDime File Merge");
+            thread.setDaemon(true); // cancelled merges may still be running when JDime exits
+            return thread;
+        });
+        Map<MergeOperation<FileArtifact>, Future<MergeContext>> results = new HashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
 
-                        context.setMergeStrategy(MergeStrategy.parse(MergeStrategy.LINEBASED).get());
-                        merge(operation, context);
+        LOG.fine(() -> String.format("Merging %d files using %d threads.", schedule.size(), numThreads));
+
+        try {
+            for (MergeOperation<FileArtifact> op : schedule) {
+                results.put(op, executor.submit(() -> {
+                    MergeContext fileContext = template.fork();
+                    fileContext.setCurrentScenario(op.getMergeScenario());
+
+                    try {
+                        op.getMergeScenario().get(0).mergeFile(op, fileContext);
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                        template.cancel();
+                        throw e;
+                    }
+
+                    return fileContext;
+                }));
+            }
+
+            for (MergeOperation<FileArtifact> op : fileMerges) {
+                MergeContext fileContext;
+
+                try {
+                    fileContext = results.get(op).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AbortException("Interrupted while merging files.", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = failure.get() != null ? failure.get() : e.getCause();
+
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
                     } else {
-                        LOG.severe(() -> "Skipping " + scenario);
+                        throw new RuntimeException(cause);
+                    }
+                }
+
+                fileContext.getCrashes().forEach(context::addCrash);
+
+                if (context.hasStatistics()) {
+                    Statistics statistics = context.getStatistics();
+
+                    for (MergeScenarioStatistics fileStats : fileContext.getStatistics().getScenarioStatistics()) {
+                        MergeScenario<?> scenario = fileStats.getMergeScenario();
+
+                        statistics.addScenarioStatistics(fileStats);
+                        statistics.getScenarioStatistics(scenario).setStatus(fileStats.getStatus());
                     }
                 }
             }
+        } finally {
+            template.cancel();
+            executor.shutdownNow();
         }
     }
 
+    /**
+     * Returns the combined size (in bytes) of the files being merged in the given <code>MergeOperation</code>.
+     *
+     * @param operation
+     *         the file level <code>MergeOperation</code>
+     * @return the size of the merge scenario
+     */
+    private static long size(MergeOperation<FileArtifact> operation) {
+        return operation.getMergeScenario().getArtifacts().values().stream()
+                .map(FileArtifact::getFile)
+                .filter(Objects::nonNull)
+                .mapToLong(File::length)
+                .sum();
+    }
+
     @Override
     public final String toString() {
         return getFile().getName();
@@ -703,11 +952,11 @@ public class FileArtifact extends Artifact<FileArtifact> {
                 content.append(" ").append(deleted.getRevision());
             }
             if (deleted == left) {
-                content.append(System.lineSeparator()).append(deleted.content);
+                content.append(System.lineSeparator()).append(deleted.getContent());
             }
             content.append(System.lineSeparator()).append(Content.Conflict.CONFLICT_DELIM);
             if (deleted == right) {
-                content.append(System.lineSeparator()).append(deleted.content);
+                content.append(System.lineSeparator()).append(deleted.getContent());
             }
             content.append(System.lineSeparator()).append(Content.Conflict.CONFLICT_END);
             if (deleted == right) {
@@ -771,7 +1020,7 @@ public class FileArtifact extends Artifact<FileArtifact> {
 
         if (isFile()) {
 
-            if (content != null) {
+            if (content != null || (original == null && bytes != null)) {
                 writeToFile();
             } else if (original != null) {
                 copyFile();
@@ -787,12 +1036,18 @@ public class FileArtifact extends Artifact<FileArtifact> {
     }
 
     /**
-     * Writes the {@link #content} of this {@link FileArtifact} to its {@link #file}.
+     * Writes the {@link #content} (or the {@link #bytes}) of this {@link FileArtifact} to its {@link #file}.
      *
      * @throws IOException
      *         see {@link FileUtils#openOutputStream(File)}
      */
     private void writeToFile() throws IOException {
+
+        if (content == null) {
+            FileUtils.writeByteArrayToFile(file, bytes);
+            return;
+        }
+
         try (OutputStreamWriter out = new OutputStreamWriter(FileUtils.openOutputStream(file), UTF_8)) {
             out.write(content);
         }
@@ -805,7 +1060,7 @@ public class FileArtifact extends Artifact<FileArtifact> {
      *         see {@link FileUtils#copyFile(File, File)}
      */
     private void copyFile() throws IOException {
-        if (!Files.isSameFile(original.toPath(), file.toPath())) {
+        if (!file.exists() || !Files.isSameFile(original.toPath(), file.toPath())) {
             FileUtils.copyFile(original, file);
         }
     }
@@ -825,6 +1080,9 @@ public class FileArtifact extends Artifact<FileArtifact> {
      * if there is an exception reading the content of non-virtual {@link FileArtifact FileArtifacts} or if the
      * {@link FileArtifact} is virtual and the content was not set to something other than an empty {@link String}.
      * Also returns an empty {@link String} for directories.
+     * <p>
+     * Content that was not set explicitly is held UTF-8 encoded and decoded on every call. Callers needing the
+     * content repeatedly should keep the returned {@link String}.
      *
      * @return the content this {@link FileArtifact} represents
      */
@@ -835,24 +1093,104 @@ public class FileArtifact extends Artifact<FileArtifact> {
             return "";
         }
 
-        if (content == null) {
-            String content;
+        String content = this.content;
+
+        if (content != null) {
+            return content;
+        }
+
+        byte[] bytes = getBytes();
+        return bytes != null ? new String(bytes, UTF_8) : "";
+    }
+
+    /**
+     * Returns the UTF-8 encoded content of this {@link FileArtifact} if it was not set explicitly. The content is read
+     * from the {@link #original} {@link File} if necessary.
+     *
+     * @return the encoded content or <code>null</code> if it could not be read
+     */
+    private byte[] getBytes() {
+        byte[] bytes = this.bytes;
+
+        if (bytes == null) {
 
             if (original == null) {
-                content = "";
+                bytes = new byte[0];
             } else {
                 try {
-                    content = FileUtils.readFileToString(original, UTF_8);
+                    bytes = Files.readAllBytes(original.toPath());
                 } catch (IOException e) {
                     LOG.log(Level.WARNING, e, () -> "Could not read the contents of " + this);
-                    return "";
+                    return null;
                 }
             }
 
-            this.content = content;
+            this.bytes = bytes;
         }
 
-        return content;
+        return bytes;
+    }
+
+    /**
+     * Returns the length of the content of this {@link FileArtifact} without decoding it. For content that was not set
+     * explicitly, this is the length of its UTF-8 encoding, otherwise the number of characters.
+     *
+     * @return the length of the content
+     */
+    private long length() {
+        String content = this.content;
+
+        if (content != null) {
+            return content.length();
+        }
+
+        byte[] bytes = this.bytes;
+
+        if (bytes != null) {
+            return bytes.length;
+        }
+
+        return original != null ? original.length() : 0;
+    }
+
+    /**
+     * Returns whether this {@link FileArtifact} has the same content as <code>other</code> (see
+     * {@link #getContent()}). Contents that were not set explicitly are compared UTF-8 encoded without decoding them.
+     * If their lengths differ, they are not even read.
+     *
+     * @param other
+     *         the {@link FileArtifact} to compare the content of this {@link FileArtifact} to
+     * @return true iff both {@link FileArtifact FileArtifacts} have the same content
+     */
+    public boolean contentEquals(FileArtifact other) {
+
+        if (content != null || other.content != null || isDirectory() || other.isDirectory()) {
+            return getContent().equals(other.getContent());
+        }
+
+        if (length() != other.length()) {
+            return false;
+        }
+
+        byte[] bytes = getBytes();
+        byte[] otherBytes = other.getBytes();
+
+        if (bytes == null || otherBytes == null) {
+            return getContent().equals(other.getContent());
+        }
+
+        return Arrays.equals(bytes, otherBytes);
+    }
+
+    /**
+     * Releases the content of this {@link FileArtifact} if it was read from the {@link #original} {@link File}. It
+     * will be read again if it is needed. Content that was set explicitly or is held in memory only is kept.
+     */
+    public void releaseContent() {
+
+        if (original != null) {
+            bytes = null;
+        }
     }
 
     /**
@@ -866,6 +1204,7 @@ public class FileArtifact extends Artifact<FileArtifact> {
 
         if (isFile()) {
             this.content = content;
+            this.bytes = null;
         } else {
             LOG.warning("Ignoring a call to setContent(String) on a FileArtifact representing a directory.");
         }
@@ -0,0 +1,286 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.file;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A cache of the SHA-256 digests of the contents of files. The cache is keyed by the absolute path of a file and
+ * validated using the size, modification time and (if the file system provides one) the file key (e.g. the inode) of
+ * the file. Only if any of them differ from the cached values is the file read and hashed again.
+ * <p>
+ * The cache may be persisted between runs (see {@link #load(File)} and {@link #save()}). To guard against files
+ * that are modified again within the resolution of the modification time, digests of files that were modified less
+ * than {@link #RACY_MILLIS} before they were hashed are not cached.
+ */
+public final class FileDigestCache {
+
+    private static final Logger LOG = Logger.getLogger(FileDigestCache.class.getCanonicalName());
+
+    /**
+     * Files modified less than this many milliseconds before they are hashed are not cached.
+     */
+    static final long RACY_MILLIS = 2000;
+
+    /**
+     * The separator between the fields of the lines of the cache file.
+     */
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * A cached digest and the attributes of the file it was calculated for.
+     */
+    private static final class Entry {
+
+        private final long size;
+        private final long modified;
+        private final String key;
+        private final String digest;
+
+        private Entry(long size, long modified, String key, String digest) {
+            this.size = size;
+            this.modified = modified;
+            this.key = key;
+            this.digest = digest;
+        }
+
+        private Entry(BasicFileAttributes attributes, String digest) {
+            this(attributes.size(), attributes.lastModifiedTime().toMillis(), fileKey(attributes), digest);
+        }
+
+        /**
+         * Returns whether this <code>Entry</code> is valid for a file with the given attributes.
+         *
+         * @param attributes
+         *         the attributes of the file
+         * @return true iff size, modification time and file key are unchanged
+         */
+        private boolean isValid(BasicFileAttributes attributes) {
+            return size == attributes.size() && modified == attributes.lastModifiedTime().toMillis()
+                    && Objects.equals(key, fileKey(attributes));
+        }
+    }
+
+    /**
+     * The cached digests.
+     */
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The file the cache is persisted to or <code>null</code> if it is not persisted.
+     */
+    private static File cacheFile;
+
+    /**
+     * Whether {@link #entries} changed since the cache was loaded.
+     */
+    private static volatile boolean modified;
+
+    /**
+     * Utility class.
+     */
+    private FileDigestCache() {}
+
+    /**
+     * Returns the hex encoded SHA-256 digest of the content of the given file.
+     *
+     * @param file
+     *         the file to hash
+     * @return the digest
+     * @throws IOException
+     *         if the file can not be read
+     */
+    public static String digest(File file) throws IOException {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Entry entry = entries.get(path.toString());
+
+        if (entry != null && entry.isValid(attributes)) {
+            return entry.digest;
+        }
+
+        long now = System.currentTimeMillis();
+        String digest;
+
+        try (InputStream in = Files.newInputStream(path)) {
+            digest = DigestUtils.sha256Hex(in);
+        }
+
+        if (attributes.lastModifiedTime().toMillis() < now - RACY_MILLIS) {
+            entries.put(path.toString(), new Entry(attributes, digest));
+            modified = true;
+        } else if (entry != null) {
+            entries.remove(path.toString());
+            modified = true;
+        }
+
+        return digest;
+    }
+
+    /**
+     * Returns whether the given files have the same content. The files are known to differ if their sizes differ and
+     * known to be equal if they are the same file (as per their file keys) and were not modified in between. Only if
+     * neither is the case are their digests compared.
+     *
+     * @param a
+     *         the first file
+     * @param b
+     *         the second file
+     * @return true iff the contents of the files are equal
+     * @throws IOException
+     *         if the files can not be read
+     */
+    public static boolean contentEquals(File a, File b) throws IOException {
+        BasicFileAttributes aAttributes = Files.readAttributes(a.toPath(), BasicFileAttributes.class);
+        BasicFileAttributes bAttributes = Files.readAttributes(b.toPath(), BasicFileAttributes.class);
+
+        if (aAttributes.size() != bAttributes.size()) {
+            return false;
+        }
+
+        String key = fileKey(aAttributes);
+
+        if (key != null && key.equals(fileKey(bAttributes))
+                && aAttributes.lastModifiedTime().equals(bAttributes.lastModifiedTime())) {
+            return true;
+        }
+
+        return digest(a).equals(digest(b));
+    }
+
+    /**
+     * Returns the <code>String</code> representation of the file key of a file.
+     *
+     * @param attributes
+     *         the attributes of the file
+     * @return the file key or <code>null</code> if the file system does not provide one
+     */
+    private static String fileKey(BasicFileAttributes attributes) {
+        Object key = attributes.fileKey();
+        return key != null ? key.toString() : null;
+    }
+
+    /**
+     * Replaces the cached digests with the ones stored in the given file and persists the cache to it in future calls
+     * to {@link #save()}. If the file does not exist, the cache is emptied.
+     *
+     * @param file
+     *         the file to load the cache from
+     */
+    public static synchronized void load(File file) {
+        entries.clear();
+        cacheFile = file;
+        modified = false;
+
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(String.valueOf(SEPARATOR), 5);
+
+                if (fields.length != 5) {
+                    continue;
+                }
+
+                String key = fields[3].isEmpty() ? null : fields[3];
+                entries.put(fields[4], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), key, fields[0]));
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOG.log(Level.WARNING, e, () -> "Could not load the file digest cache from " + file);
+            entries.clear();
+        }
+    }
+
+    /**
+     * Writes the cached digests to the file they were loaded from if they changed since.
+     */
+    public static synchronized void save() {
+
+        if (cacheFile == null || !modified) {
+            return;
+        }
+
+        Path target = cacheFile.toPath().toAbsolutePath();
+        Path tmp = null;
+
+        try {
+            tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), null);
+
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, UTF_8)) {
+
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+
+                    if (e.getKey().indexOf('\n') != -1 || e.getKey().indexOf('\r') != -1) {
+                        continue;
+                    }
+
+                    writer.append(entry.digest).append(SEPARATOR).append(String.valueOf(entry.size)).append(SEPARATOR);
+                    writer.append(String.valueOf(entry.modified)).append(SEPARATOR);
+                    writer.append(entry.key != null ? entry.key : "").append(SEPARATOR).append(e.getKey());
+                    writer.newLine();
+                }
+            }
+
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            modified = false;
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, e, () -> "Could not save the file digest cache to " + cacheFile);
+
+            if (tmp != null) {
+                tmp.toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached digests and stops persisting the cache.
+     */
+    public static synchronized void clear() {
+        entries.clear();
+        cacheFile = null;
+        modified = false;
+    }
+}
@@ -0,0 +1,398 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.config.merge.MergeType;
+import de.fosd.jdime.config.merge.Revision;
+import de.fosd.jdime.operations.MergeOperation;
+
+import static de.fosd.jdime.config.merge.MergeScenario.BASE;
+
+/**
+ * Merges directories by walking the left, base and right directories in lockstep instead of building and matching
+ * complete <code>FileArtifact</code> trees. The entries of the directories are listed, sorted by name and joined on
+ * their names. The Java files (as determined by their extension) of a directory that exist in the left and right
+ * revision are merged before its subdirectories are descended into and the results are written immediately. Only the
+ * entries of the directories currently being merged are therefore held in memory.
+ * <p>
+ * Added, deleted and deleted but changed files and directories are treated like the {@link de.fosd.jdime.merge.Merge}
+ * of <code>FileArtifact</code> trees treats them. When pretending, the files are printed in the order they are
+ * written, which differs from the order in which the <code>FileArtifact</code> tree of the result would be printed.
+ */
+final class StreamingDirectoryMerge {
+
+    private static final Logger LOG = Logger.getLogger(StreamingDirectoryMerge.class.getCanonicalName());
+
+    private static final String JAVA_EXTENSION = ".java";
+
+    private final MergeContext context;
+    private final Revision left;
+    private final Revision base;
+    private final Revision right;
+
+    /**
+     * Constructs a new <code>StreamingDirectoryMerge</code> for the revisions of the given <code>scenario</code>.
+     *
+     * @param scenario
+     *         the scenario of the top level directories
+     * @param context
+     *         the <code>MergeContext</code>
+     */
+    private StreamingDirectoryMerge(MergeScenario<FileArtifact> scenario, MergeContext context) {
+        this.context = context;
+        this.left = scenario.getLeft().getRevision();
+        this.base = scenario.getBase().getRevision();
+        this.right = scenario.getRight().getRevision();
+    }
+
+    /**
+     * Returns whether the directory merge of the given <code>operation</code> can be performed streaming. This is the
+     * case for two- and three-way merges that are not conditional. Since added and deleted files are written without
+     * applying <code>Operation</code>s, no statistics are recorded for them. Directories are therefore never merged
+     * streaming if statistics are collected.
+     *
+     * @param operation
+     *         the directory level <code>MergeOperation</code>
+     * @param context
+     *         the <code>MergeContext</code>
+     * @return true iff {@link #merge(MergeOperation, MergeContext)} supports the <code>operation</code>
+     */
+    static boolean supports(MergeOperation<FileArtifact> operation, MergeContext context) {
+        return operation.getMergeScenario().getMergeType() != MergeType.NWAY && !context.isConditionalMerge()
+                && !context.hasStatistics();
+    }
+
+    /**
+     * Merges the directories of the given <code>operation</code> and writes the merged files to (or below) the
+     * <code>File</code> of its target. If the <code>context</code> is set to pretend, the merged files are printed
+     * instead.
+     *
+     * @param operation
+     *         the directory level <code>MergeOperation</code>
+     * @param context
+     *         the <code>MergeContext</code>
+     */
+    static void merge(MergeOperation<FileArtifact> operation, MergeContext context) {
+        MergeScenario<FileArtifact> scenario = operation.getMergeScenario();
+        File base = scenario.getMergeType() == MergeType.THREEWAY ? scenario.getBase().getFile() : null;
+
+        LOG.fine(() -> "Merging directories streaming " + scenario);
+
+        new StreamingDirectoryMerge(scenario, context).mergeDirectories(scenario.getLeft().getFile(), base,
+                scenario.getRight().getFile(), operation.getTarget().getFile());
+    }
+
+    /**
+     * Merges the given directories into the <code>target</code> directory.
+     *
+     * @param leftDir
+     *         the left directory
+     * @param baseDir
+     *         the base directory, may be <code>null</code>
+     * @param rightDir
+     *         the right directory
+     * @param targetDir
+     *         the target directory
+     */
+    private void mergeDirectories(File leftDir, File baseDir, File rightDir, File targetDir) {
+        String[] l = list(leftDir);
+        String[] b = list(baseDir);
+        String[] r = list(rightDir);
+
+        List<MergeOperation<FileArtifact>> fileMerges = new ArrayList<>();
+        List<File[]> dirMerges = new ArrayList<>();
+
+        for (int i = 0, j = 0, k = 0; i < l.length || j < b.length || k < r.length; ) {
+            String name = min(min(i < l.length ? l[i] : null, j < b.length ? b[j] : null), k < r.length ? r[k] : null);
+
+            File leftFile = i < l.length && l[i].equals(name) ? new File(leftDir, l[i++]) : null;
+            File baseFile = j < b.length && b[j].equals(name) ? new File(baseDir, b[j++]) : null;
+            File rightFile = k < r.length && r[k].equals(name) ? new File(rightDir, r[k++]) : null;
+            File target = new File(targetDir, name);
+
+            if (leftFile != null && rightFile != null) {
+
+                if (leftFile.isDirectory() != rightFile.isDirectory()) {
+                    LOG.warning(() -> String.format("%s and %s are not of the same type. Using %s.",
+                                                    leftFile, rightFile, leftFile));
+                    add(left, leftFile, target);
+                } else if (leftFile.isDirectory()) {
+                    dirMerges.add(new File[] {leftFile, sameType(baseFile, leftFile), rightFile, target});
+                } else if (isJavaFile(leftFile)) {
+                    fileMerges.add(fileMerge(leftFile, sameType(baseFile, leftFile), rightFile, target));
+                } else {
+                    LOG.fine(() -> "Skipping non-java file " + leftFile);
+                    write(new FileArtifact(left, leftFile, false).copyTo(target));
+                }
+            } else if (leftFile != null || rightFile != null) {
+                boolean isLeft = leftFile != null;
+                File changed = isLeft ? leftFile : rightFile;
+                File original = sameType(baseFile, changed);
+
+                if (original == null) {
+                    add(isLeft ? left : right, changed, target);
+                } else if (hasChanges(changed, original)) {
+                    conflict(isLeft, changed, target);
+                } else {
+                    LOG.finest(() -> changed + " is deleted");
+                }
+            }
+        }
+
+        if (context.getThreads() > 1 && fileMerges.size() > 1) {
+            FileArtifact.mergeFilesConcurrently(fileMerges, context);
+        } else {
+            fileMerges.forEach(op -> op.apply(context));
+        }
+
+        fileMerges.forEach(op -> write(op.getTarget()));
+        dirMerges.forEach(d -> mergeDirectories(d[0], d[1], d[2], d[3]));
+    }
+
+    /**
+     * Returns the file level <code>MergeOperation</code> for the given files.
+     *
+     * @param leftFile
+     *         the left file
+     * @param baseFile
+     *         the base file, may be <code>null</code>
+     * @param rightFile
+     *         the right file
+     * @param target
+     *         the file to write the result to
+     * @return the <code>MergeOperation</code>
+     */
+    private MergeOperation<FileArtifact> fileMerge(File leftFile, File baseFile, File rightFile, File target) {
+        FileArtifact l = new FileArtifact(left, leftFile, false);
+        FileArtifact r = new FileArtifact(right, rightFile, false);
+        MergeScenario<FileArtifact> scenario;
+
+        if (baseFile != null) {
+            scenario = new MergeScenario<>(MergeType.THREEWAY, l, new FileArtifact(base, baseFile, false), r);
+        } else {
+            scenario = new MergeScenario<>(MergeType.TWOWAY, l, l.createEmptyArtifact(BASE), r);
+        }
+
+        return new MergeOperation<>(scenario, l.copyTo(target));
+    }
+
+    /**
+     * Writes the file or directory added in the given <code>revision</code> to the <code>target</code>.
+     *
+     * @param revision
+     *         the <code>Revision</code> that added the <code>file</code>
+     * @param file
+     *         the added file or directory
+     * @param target
+     *         the file or directory to write to
+     */
+    private void add(Revision revision, File file, File target) {
+        LOG.finest(() -> file + " is added");
+
+        if (file.isDirectory()) {
+
+            for (String name : list(file)) {
+                add(revision, new File(file, name), new File(target, name));
+            }
+        } else {
+            write(new FileArtifact(revision, file, false).copyTo(target));
+        }
+    }
+
+    /**
+     * Writes the conflicts for the file or directory that was changed in one revision and deleted in the other one to
+     * the <code>target</code> (see {@link FileArtifact#createConflictArtifact(FileArtifact, FileArtifact)}).
+     *
+     * @param isLeft
+     *         whether the <code>file</code> is from the left revision
+     * @param file
+     *         the changed file or directory
+     * @param target
+     *         the file or directory to write to
+     */
+    private void conflict(boolean isLeft, File file, File target) {
+        LOG.finest(() -> file + " was deleted in the other revision but has changes");
+
+        if (file.isDirectory()) {
+
+            for (String name : list(file)) {
+                conflict(isLeft, new File(file, name), new File(target, name));
+            }
+        } else {
+            FileArtifact changed = new FileArtifact(isLeft ? left : right, file, false);
+            FileArtifact conflict;
+
+            if (isLeft) {
+                conflict = changed.createConflictArtifact(changed, null);
+            } else {
+                conflict = changed.createConflictArtifact(null, changed);
+            }
+
+            write(conflict.copyTo(target));
+        }
+    }
+
+    /**
+     * Returns whether the given file or directory differs from the <code>original</code> one. Directories differ if
+     * their (filtered) entries differ in name or content.
+     *
+     * @param file
+     *         the file or directory
+     * @param original
+     *         the original file or directory of the same type
+     * @return true iff <code>file</code> has changes
+     */
+    private boolean hasChanges(File file, File original) {
+
+        if (file.isDirectory() != original.isDirectory()) {
+            return true;
+        }
+
+        if (file.isFile()) {
+
+            try {
+                return !FileDigestCache.contentEquals(file, original);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, e, () -> "Could not compare " + file + " and " + original);
+                return true;
+            }
+        }
+
+        String[] names = list(file);
+
+        if (!Arrays.equals(names, list(original))) {
+            return true;
+        }
+
+        for (String name : names) {
+
+            if (hasChanges(new File(file, name), new File(original, name))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Writes the given <code>artifact</code> to its file or prints it if the <code>context</code> is set to pretend.
+     *
+     * @param artifact
+     *         the <code>FileArtifact</code> to output
+     */
+    private void write(FileArtifact artifact) {
+
+        if (context.isPretend()) {
+
+            if (!context.isQuiet()) {
+                artifact.outputContent(System.out);
+                System.out.println();
+            }
+        } else {
+            try {
+                artifact.writeContent();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, e, () -> "Could not write the merge result to " + artifact.getFile());
+            }
+        }
+    }
+
+    /**
+     * Returns the sorted names of the entries of the given directory. If non-java files are to be filtered (see
+     * {@link MergeContext#isFilterInputDirectories()}), only directories and Java files are returned.
+     *
+     * @param dir
+     *         the directory to list, may be <code>null</code>
+     * @return the names of the entries
+     */
+    private String[] list(File dir) {
+
+        if (dir == null) {
+            return new String[0];
+        }
+
+        File[] files = dir.listFiles();
+
+        if (files == null) {
+            LOG.warning(() -> String.format("Could not list the contents of the directory %s.", dir));
+            return new String[0];
+        }
+
+        boolean filter = context.isFilterInputDirectories();
+
+        return Arrays.stream(files)
+                .filter(f -> !filter || f.isDirectory() || isJavaFile(f))
+                .map(File::getName)
+                .sorted()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Returns <code>file</code> if it is of the same type (file or directory) as <code>other</code>.
+     *
+     * @param file
+     *         the file, may be <code>null</code>
+     * @param other
+     *         the file to compare to
+     * @return <code>file</code> or <code>null</code>
+     */
+    private static File sameType(File file, File other) {
+        return file != null && file.isDirectory() == other.isDirectory() ? file : null;
+    }
+
+    /**
+     * Returns whether the given <code>file</code> is a Java source code file according to its extension.
+     *
+     * @param file
+     *         the file to check
+     * @return true iff <code>file</code> is a normal file whose name ends in {@value #JAVA_EXTENSION}
+     */
+    private static boolean isJavaFile(File file) {
+        return file.getName().endsWith(JAVA_EXTENSION) && file.isFile();
+    }
+
+    /**
+     * Returns the smaller of the given names. <code>null</code> is greater than every name.
+     */
+    private static String min(String a, String b) {
+
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        } else {
+            return a.compareTo(b) <= 0 ? a : b;
+        }
+    }
+}
@@ -63,6 +63,14 @@ public class CommandLineConfigSource extends ConfigSource {
     public static final String CLI_DUMP = "dmp";
     public static final String CLI_OUTPUT = "o";
     public static final String CLI_OPTIMIZE_MULTI_CONFLICTS = "omc";
+    public static final String CLI_PARALLEL_MATCHING = "pm";
+    public static final String CLI_PARALLEL_MERGE = "pmerge";
+    public static final String CLI_THREADS = "threads";
+    public static final String CLI_TRIVIAL_MERGES = "tm";
+    public static final String CLI_ADAPTIVE = "adaptive";
+    public static final String CLI_SPECULATIVE = "speculative";
+    public static final String CLI_JAVA_DIFF3 = "jdiff3";
+    public static final String CLI_STREAMING_DIRECTORIES = "stream";
     public static final String CLI_RECURSIVE = "r";
     public static final String CLI_STATS = "s";
     public static final String CLI_PRETEND = "p";
@@ -70,12 +78,14 @@ public class CommandLineConfigSource extends ConfigSource {
     public static final String CLI_VERSION = "v";
     public static final String CLI_PROP_FILE = "pf";
     public static final String CLI_EXIT_ON_ERROR = "eoe";
+    public static final String CLI_SUBTREE_FALLBACK = "sf";
     public static final String CLI_CM = "cm";
     public static final String CLI_CM_REMATCH_BOUND = "cmbound";
     public static final String CLI_CM_OPTIONS = "cmopts";
     public static final String CLI_CM_PARALLEL = "cmpar";
     public static final String CLI_CM_FIX_PERCENTAGE = "cmfix";
     public static final String CLI_CM_SEED = "cmseed";
+    public static final String CLI_CM_CONTEXT_RADIUS = "cmradius";
 
     public static final String ARG_LIST = "ARG_LIST";
     public static final String ARG_LIST_SEP = ",";
@@ -242,6 +252,80 @@ public class CommandLineConfigSource extends ConfigSource {
 
         options.addOption(o);
 
+        o = Option.builder(CLI_PARALLEL_MATCHING)
+                .longOpt("parallel-matching")
+                .desc("Match the left and right revisions against the base revision in parallel during " +
+                        "three-way structured merges.")
+                .hasArg(false)
+                .build();
+
+        options.addOption(o);
+
+        o = Option.builder(CLI_PARALLEL_MERGE)
+                .longOpt("parallel-merge")
+                .desc("Merge the matched children of AST nodes in parallel during structured merges.")
+                .hasArg(false)
+                .build();
+
+        options.addOption(o);
+
+        o = Option.builder(CLI_THREADS)
+                .longOpt("threads")
+                .desc("The number of files to merge concurrently when merging directories. The default is 1.")
+                .hasArg()
+                .argName("N")
+                .build();
+
+        options.addOption(o);
+
+        o = Option.builder(CLI_TRIVIAL_MERGES)
+                .longOpt("trivial-merges")
+                .desc("Resolve structured file merges in which two of the three revisions are identical by taking the " +
+                        "changed revision verbatim instead of parsing and merging the files. Subtrees are treated " +
+                        "the same way during structured merges.")
+                .hasArg(false)
+                .build();
+
+        options.addOption(o);
+
+        o = Option.builder(CLI_SPECULATIVE)
+                .longOpt("speculative-combined")
+                .desc("When combining multiple strategies (e.g. '-m linebased,structured'), run all of them " +
+                        "concurrently and use the result of the first one (in the given order) that produces no " +
+                        "conflicts instead of running them one after another.")
+                .hasArg(false)
+                .build();
+
+        options.addOption(o);
+
+        o = Option.builder(CLI_ADAPTIVE)
+                .longOpt("adaptive-semistructured")
+                .desc("In semistructured mode, decide per file whether to merge the method bodies line based or " +
+                        "structured depending on the size of the file and the proportion of changed method bodies.")
+                .hasArg(false)
+                .build();
+
+        options.addOption(o);
+
+        o = Option.builder(CLI_JAVA_DIFF3)
+                .longOpt("java-diff3")
+                .desc("Perform line based merges using the merge implemented in Java instead of the native libgit2 " +
+                        "merge. The Java implementation is also used if libgit2 can not be loaded.")
+                .hasArg(false)
+                .build();
+
+        options.addOption(o);
+
+        o = Option.builder(CLI_STREAMING_DIRECTORIES)
+                .longOpt("streaming-directories")
+                .desc("Merge directories by walking the input directories in lockstep and writing the merged files as " +
+                        "they are merged instead of building and matching the complete directory trees first. " +
+                        "Java files are recognized by their extension. Ignored if statistics are collected.")
+                .hasArg(false)
+                .build();
+
+        options.addOption(o);
+
         o = Option.builder(CLI_RECURSIVE)
                 .longOpt("recursive")
                 .desc("Merge directories recursively.")
@@ -300,6 +384,15 @@ public class CommandLineConfigSource extends ConfigSource {
 
         options.addOption(o);
 
+        o = Option.builder(CLI_SUBTREE_FALLBACK)
+                .longOpt("subtree-fallback")
+                .desc("If the structured merge of a method or class declaration fails, merge only the code of that " +
+                        "declaration line based instead of falling back to merging the whole file line based.")
+                .hasArg(false)
+                .build();
+
+        options.addOption(o);
+
         {
             String modes = Arrays.stream(CMMode.values()).map(CMMode::name).reduce("", (s, s2) -> s + " " + s2);
 
@@ -333,7 +426,8 @@ public class CommandLineConfigSource extends ConfigSource {
 
         o = Option.builder(CLI_CM_PARALLEL)
                 .longOpt("cost-model-parallel")
-                .desc("Whether to speed up the cost model matcher by calculating the edge costs in parallel.")
+                .desc("Whether to speed up the cost model matcher by calculating the edge costs and matching " +
+                        "independent regions in parallel.")
                 .hasArg(false)
                 .build();
 
@@ -358,6 +452,16 @@ public class CommandLineConfigSource extends ConfigSource {
 
         options.addOption(o);
 
+        o = Option.builder(CLI_CM_CONTEXT_RADIUS)
+                .longOpt("cost-model-context-radius")
+                .desc("If the cost model matcher operation mode is " + CMMode.POST_PROCESSOR + " only the regions " +
+                        "containing unmatched nodes are optimized. This sets the number of matched ancestor levels " +
+                        "added to every region as context (a non-negative integer). The default is 1.")
+                .hasArg(true)
+                .build();
+
+        options.addOption(o);
+
 
         return options;
     }
@@ -194,6 +194,38 @@ public final class JDimeConfig extends Config {
      */
     public static final String LOOKAHEAD_PREFIX = "LAH_";
 
+    /**
+     * The maximum total length (in characters) of the files whose parsed ASTs are kept in the
+     * {@link de.fosd.jdime.artifact.ast.ParseCache}. A value of 0 disables the cache. Must be a number parseable by
+     * {@link Integer#parseInt(String)}.
+     */
+    public static final String PARSE_CACHE_SIZE = "PARSE_CACHE_SIZE";
+
+    /**
+     * The maximum total length (in characters) of the results of line based block merges kept in the
+     * {@link de.fosd.jdime.strategy.BlockMergeCache}. A value of 0 disables the cache. Must be a number parseable by
+     * {@link Integer#parseInt(String)}.
+     */
+    public static final String BLOCK_MERGE_CACHE_SIZE = "BLOCK_MERGE_CACHE_SIZE";
+
+    /**
+     * The file the {@link de.fosd.jdime.artifact.file.FileDigestCache} is persisted to between runs. If unset, the
+     * digests of the files are only cached for a single run.
+     */
+    public static final String FILE_DIGEST_CACHE = "FILE_DIGEST_CACHE";
+
+    /**
+     * The maximum number of AST nodes of a file whose method bodies may be merged structurally in adaptive
+     * semistructured merges. Must be a number parseable by {@link Integer#parseInt(String)}.
+     */
+    public static final String ADAPTIVE_MAX_NODES = "ADAPTIVE_MAX_NODES";
+
+    /**
+     * The minimum proportion of changed method bodies for which the method bodies of a file are merged structurally in
+     * adaptive semistructured merges. Must be a number parseable by {@link Float#parseFloat(String)}.
+     */
+    public static final String ADAPTIVE_MIN_CHANGE = "ADAPTIVE_MIN_CHANGE";
+
     /**
      * The commit that was checked out at the time JDime was built. The build script will add this value to
      * JDime.properties.
@@ -31,6 +31,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -47,9 +48,12 @@ import de.fosd.jdime.config.JDimeConfig;
 import de.fosd.jdime.execption.AbortException;
 import de.fosd.jdime.matcher.cost_model.CMMode;
 import de.fosd.jdime.matcher.cost_model.CostModelMatcher;
+import de.fosd.jdime.merge.Diff3;
+import de.fosd.jdime.operations.MergeOperation;
 import de.fosd.jdime.stats.KeyEnums;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
 import de.fosd.jdime.stats.Statistics;
+import de.fosd.jdime.strategy.CombinedStrategy;
 import de.fosd.jdime.strategy.LinebasedStrategy;
 import de.fosd.jdime.strategy.MergeStrategy;
 import de.fosd.jdime.strategy.NWayStrategy;
@@ -144,6 +148,11 @@ public class MergeContext implements Cloneable {
      */
     private boolean exitOnError;
 
+    /**
+     * Whether to merge only the code of a method or class declaration line based if its structured merge fails.
+     */
+    private boolean subtreeFallback;
+
     /**
      * Strategy to apply for the merge.
      */
@@ -175,6 +184,12 @@ public class MergeContext implements Cloneable {
     private boolean collectStatistics;
     private Statistics statistics;
 
+    /**
+     * The <code>MergeScenario</code> of the file or directory currently being merged using this
+     * <code>MergeContext</code>. The statistics of the operations applied while merging it are attributed to it.
+     */
+    private MergeScenario<FileArtifact> currentScenario;
+
     private List<Field> excludeStatisticsMSSFields;
 
     /**
@@ -187,6 +202,61 @@ public class MergeContext implements Cloneable {
      */
     private boolean optimizeMultiConflicts;
 
+    /**
+     * Whether to match the left and right revisions against the base revision concurrently.
+     */
+    private boolean parallelMatching;
+
+    /**
+     * Whether to merge the matched children of AST nodes concurrently.
+     */
+    private boolean parallelMerge;
+
+    /**
+     * The number of files to merge concurrently when merging directories.
+     */
+    private int threads;
+
+    /**
+     * Whether to resolve file merges in which two of the three revisions are identical without parsing the files and
+     * to shortcut the merge of such subtrees during structured merges.
+     */
+    private boolean trivialMerges;
+
+    /**
+     * Whether the strategies of a {@link CombinedStrategy} are run concurrently instead of one after another.
+     */
+    private boolean speculative;
+
+    /**
+     * Whether the merge performed using this <code>MergeContext</code> has been cancelled. Shared with all copies
+     * and forks except the ones created by {@link #forkCancellable()}.
+     */
+    private AtomicBoolean cancelled;
+
+    /**
+     * Whether line based merges are performed by {@link Diff3} instead of the native libgit2 merge.
+     */
+    private boolean javaDiff3;
+
+    /**
+     * Whether directories are merged by walking the input directories in lockstep instead of matching complete
+     * <code>FileArtifact</code> trees.
+     */
+    private boolean streamingDirectories;
+
+    /**
+     * If not <code>null</code>, the file level <code>MergeOperation</code>s encountered while merging directories are
+     * collected in this list instead of being applied immediately.
+     */
+    private List<MergeOperation<FileArtifact>> deferredFileMerges;
+
+    /**
+     * If not <code>null</code>, the line based <code>MergeOperation</code>s of the blocks encountered during a
+     * semistructured merge are collected in this list instead of being applied immediately.
+     */
+    private List<MergeOperation<FileArtifact>> deferredBlockMerges;
+
     /**
      * Whether {@link StructuredStrategy} act semi-structured, that is whether it should perform line based merging
      * on the configured {@link #semiStructuredLevel}.
@@ -194,6 +264,24 @@ public class MergeContext implements Cloneable {
     private boolean semiStructured;
     private KeyEnums.Level semiStructuredLevel;
 
+    /**
+     * Whether semi-structured merges decide per file whether to perform line based merging on the
+     * {@link #semiStructuredLevel} or to merge the file fully structured (see {@link #adaptiveMaxNodes} and
+     * {@link #adaptiveMinChange}).
+     */
+    private boolean adaptiveSemiStructured;
+
+    /**
+     * The maximum number of AST nodes of a file that is merged fully structured in adaptive semi-structured merges.
+     */
+    private int adaptiveMaxNodes;
+
+    /**
+     * The minimum proportion of changed blocks of a file that is merged fully structured in adaptive semi-structured
+     * merges.
+     */
+    private float adaptiveMinChange;
+
     /**
      * How many levels to keep searching for matches in the subtree if the
      * currently compared nodes are not equal. If there are no matches within
@@ -217,6 +305,7 @@ public class MergeContext implements Cloneable {
     private int costModelIterations;
     private boolean cmMatcherParallel;
     private boolean cmMatcherFixRandomPercentage;
+    private int cmContextRadius;
 
     /**
      * Constructs a new <code>MergeContext</code> initializing all options to their default values.
@@ -232,6 +321,7 @@ public class MergeContext implements Cloneable {
         this.filterInputDirectories = true;
         this.keepGoing = false;
         this.exitOnError = false;
+        this.subtreeFallback = false;
         this.mergeStrategy = new LinebasedStrategy();
         this.outputFile = null;
         this.quiet = false;
@@ -241,8 +331,19 @@ public class MergeContext implements Cloneable {
         this.statistics = new Statistics();
         this.excludeStatisticsMSSFields = new ArrayList<>();
         this.useMCESubtreeMatcher = false;
+        this.parallelMatching = false;
+        this.parallelMerge = false;
+        this.threads = 1;
+        this.trivialMerges = false;
+        this.speculative = false;
+        this.cancelled = new AtomicBoolean();
+        this.javaDiff3 = false;
+        this.streamingDirectories = false;
         this.semiStructured = false;
         this.semiStructuredLevel = KeyEnums.Level.METHOD;
+        this.adaptiveSemiStructured = false;
+        this.adaptiveMaxNodes = 20000;
+        this.adaptiveMinChange = 0.25f;
         this.lookAhead = MergeContext.LOOKAHEAD_OFF;
         this.lookAheads = new HashMap<>();
         this.crashes = new HashMap<>();
@@ -260,6 +361,7 @@ public class MergeContext implements Cloneable {
         this.costModelIterations = 100;
         this.cmMatcherParallel = true;
         this.cmMatcherFixRandomPercentage = true;
+        this.cmContextRadius = 1;
     }
 
     /**
@@ -269,6 +371,21 @@ public class MergeContext implements Cloneable {
      *         the <code>MergeContext</code> to copy
      */
     public MergeContext(MergeContext toCopy) {
+        this(toCopy, false);
+    }
+
+    /**
+     * Copies the given <code>MergeContext</code>. If <code>fork</code> is <code>false</code>, the input and output
+     * <code>FileArtifact</code>s, the <code>Statistics</code> and the crashes are copied. Otherwise the
+     * <code>FileArtifact</code>s are shared with <code>toCopy</code> and the statistics and crashes start out empty.
+     *
+     * @param toCopy
+     *         the <code>MergeContext</code> to copy
+     * @param fork
+     *         whether to create a fork of <code>toCopy</code>
+     * @see #fork()
+     */
+    private MergeContext(MergeContext toCopy, boolean fork) {
         this.conditionalMerge = toCopy.conditionalMerge;
         this.conditionalOutsideMethods = toCopy.conditionalOutsideMethods;
         this.diffOnly = toCopy.diffOnly;
@@ -279,28 +396,50 @@ public class MergeContext implements Cloneable {
         this.forceOverwriting = toCopy.forceOverwriting;
 
         this.inputFiles = new ArtifactList<>();
-        this.inputFiles.addAll(toCopy.inputFiles.stream().map(FileArtifact::copy).collect(Collectors.toList()));
+
+        if (fork) {
+            this.inputFiles.addAll(toCopy.inputFiles);
+        } else {
+            this.inputFiles.addAll(toCopy.inputFiles.stream().map(FileArtifact::copy).collect(Collectors.toList()));
+        }
 
         this.filterInputDirectories = toCopy.filterInputDirectories;
         this.keepGoing = toCopy.keepGoing;
         this.exitOnError = toCopy.exitOnError;
+        this.subtreeFallback = toCopy.subtreeFallback;
         this.mergeStrategy = toCopy.mergeStrategy; // MergeStrategy should be stateless
-        this.outputFile = toCopy.outputFile.copy();
+        this.outputFile = fork ? toCopy.outputFile : toCopy.outputFile.copy();
         this.quiet = toCopy.quiet;
         this.pretend = toCopy.pretend;
         this.recursive = toCopy.recursive;
         this.collectStatistics = toCopy.collectStatistics;
-        this.statistics = new Statistics(toCopy.statistics);
+        this.statistics = fork ? new Statistics() : new Statistics(toCopy.statistics);
+
+        if (toCopy.currentScenario != null) {
+            this.currentScenario = fork ? toCopy.currentScenario : new MergeScenario<>(toCopy.currentScenario);
+        }
+
         this.excludeStatisticsMSSFields = new ArrayList<>(toCopy.excludeStatisticsMSSFields);
         this.useMCESubtreeMatcher = toCopy.useMCESubtreeMatcher;
         this.optimizeMultiConflicts = toCopy.optimizeMultiConflicts;
+        this.parallelMatching = toCopy.parallelMatching;
+        this.parallelMerge = toCopy.parallelMerge;
+        this.threads = toCopy.threads;
+        this.trivialMerges = toCopy.trivialMerges;
+        this.speculative = toCopy.speculative;
+        this.cancelled = toCopy.cancelled;
+        this.javaDiff3 = toCopy.javaDiff3;
+        this.streamingDirectories = toCopy.streamingDirectories;
         this.semiStructured = toCopy.semiStructured;
         this.semiStructuredLevel = toCopy.semiStructuredLevel;
+        this.adaptiveSemiStructured = toCopy.adaptiveSemiStructured;
+        this.adaptiveMaxNodes = toCopy.adaptiveMaxNodes;
+        this.adaptiveMinChange = toCopy.adaptiveMinChange;
 
         this.lookAhead = toCopy.lookAhead;
         this.lookAheads = new HashMap<>(toCopy.lookAheads);
 
-        this.crashes = new HashMap<>(toCopy.crashes);
+        this.crashes = fork ? new HashMap<>() : new HashMap<>(toCopy.crashes);
         this.cmMatcherMode = toCopy.cmMatcherMode;
         this.cmReMatchBound = toCopy.cmReMatchBound;
         this.wr = toCopy.wr;
@@ -315,6 +454,33 @@ public class MergeContext implements Cloneable {
         this.costModelIterations = toCopy.costModelIterations;
         this.cmMatcherParallel = toCopy.cmMatcherParallel;
         this.cmMatcherFixRandomPercentage = toCopy.cmMatcherFixRandomPercentage;
+        this.cmContextRadius = toCopy.cmContextRadius;
+    }
+
+    /**
+     * Returns a cheap copy of this <code>MergeContext</code> for merging a single scenario with a different
+     * configuration or in another thread. The fork shares the input and output <code>FileArtifact</code>s with this
+     * <code>MergeContext</code> instead of copying them. Its <code>Statistics</code> (and crashes) start out empty
+     * and are meant to be added to the ones of this <code>MergeContext</code> by the caller once the merge is done.
+     *
+     * @return the forked <code>MergeContext</code>
+     * @see Statistics#fork()
+     */
+    public MergeContext fork() {
+        return new MergeContext(this, true);
+    }
+
+    /**
+     * Returns a fork of this <code>MergeContext</code> (see {@link #fork()}) whose merge can be cancelled using
+     * {@link #cancel()} without cancelling the merge performed using this <code>MergeContext</code>.
+     *
+     * @return the forked <code>MergeContext</code>
+     */
+    public MergeContext forkCancellable() {
+        MergeContext fork = fork();
+        fork.cancelled = new AtomicBoolean();
+
+        return fork;
     }
 
     /**
@@ -429,6 +595,21 @@ public class MergeContext implements Cloneable {
 
         config.getBoolean(OPTIMIZE_MULTI_CONFLICTS).ifPresent(this::setOptimizeMultiConflicts);
 
+        config.getBoolean(CLI_PARALLEL_MATCHING).ifPresent(this::setParallelMatching);
+
+        config.getBoolean(CLI_PARALLEL_MERGE).ifPresent(this::setParallelMerge);
+
+        config.getInteger(CLI_THREADS).ifPresent(this::setThreads);
+
+        config.getBoolean(CLI_TRIVIAL_MERGES).ifPresent(this::setTrivialMerges);
+        config.getBoolean(CLI_SPECULATIVE).ifPresent(this::setSpeculative);
+        config.getBoolean(CLI_JAVA_DIFF3).ifPresent(this::setJavaDiff3);
+        config.getBoolean(CLI_STREAMING_DIRECTORIES).ifPresent(this::setStreamingDirectories);
+
+        config.getBoolean(CLI_ADAPTIVE).ifPresent(this::setAdaptiveSemiStructured);
+        config.getInteger(ADAPTIVE_MAX_NODES).ifPresent(this::setAdaptiveMaxNodes);
+        config.getFloat(ADAPTIVE_MIN_CHANGE).ifPresent(this::setAdaptiveMinChange);
+
         config.get(CLI_LOOKAHEAD, val -> {
             String msg = "Invalid lookahead level '" + val + "'. Must be one of 'off', 'full' or a non-negative integer.";
             RuntimeException abort = new AbortException(msg);
@@ -472,6 +653,7 @@ public class MergeContext implements Cloneable {
     private void configErrorHandling(JDimeConfig config) {
         config.getBoolean(CLI_KEEPGOING).ifPresent(this::setKeepGoing);
         config.getBoolean(CLI_EXIT_ON_ERROR).ifPresent(this::setExitOnError);
+        config.getBoolean(CLI_SUBTREE_FALLBACK).ifPresent(this::setSubtreeFallback);
     }
 
     /**
@@ -563,6 +745,23 @@ public class MergeContext implements Cloneable {
                 }
             }
         });
+
+        config.get(CLI_CM_CONTEXT_RADIUS, val -> {
+            String msg = "Invalid cost model context radius '" + val + "'. Must be a non-negative integer.";
+            int radius;
+
+            try {
+                radius = Integer.parseInt(val.trim());
+            } catch (NumberFormatException e) {
+                throw new AbortException(msg, e);
+            }
+
+            if (radius < 0) {
+                throw new AbortException(msg);
+            }
+
+            return Optional.of(radius);
+        }).ifPresent(this::setCmContextRadius);
     }
 
     /**
@@ -630,8 +829,12 @@ public class MergeContext implements Cloneable {
 
             List<FileArtifact> inputArtifacts = new ArtifactList<>(inputFiles.size());
 
+            // Streaming directory merges list the directories themselves.
+            boolean recursive = !isStreamingDirectories() || isConditionalMerge() || hasStatistics()
+                    || inputFiles.size() > MergeType.THREEWAY_FILES || getDumpMode() != DumpMode.NONE || isInspect();
+
             for (File file : inputFiles) {
-                FileArtifact artifact = new FileArtifact(revSupplier.get(), file);
+                FileArtifact artifact = new FileArtifact(revSupplier.get(), file, recursive);
                 inputArtifacts.add(artifact);
             }
 
@@ -761,6 +964,48 @@ public class MergeContext implements Cloneable {
         return statistics;
     }
 
+    /**
+     * Sets the <code>Statistics</code> object used to collect statistical data.
+     *
+     * @param statistics
+     *         the new <code>Statistics</code>
+     */
+    public void setStatistics(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the <code>MergeScenario</code> of the file or directory currently being merged using this
+     * <code>MergeContext</code>.
+     *
+     * @return the current <code>MergeScenario</code> or <code>null</code>
+     */
+    public MergeScenario<FileArtifact> getCurrentScenario() {
+        return currentScenario;
+    }
+
+    /**
+     * Sets the <code>MergeScenario</code> of the file or directory currently being merged using this
+     * <code>MergeContext</code>.
+     *
+     * @param currentScenario
+     *         the new current <code>MergeScenario</code>
+     */
+    public void setCurrentScenario(MergeScenario<FileArtifact> currentScenario) {
+        this.currentScenario = currentScenario;
+    }
+
+    /**
+     * Returns the <code>MergeScenarioStatistics</code> for the current <code>MergeScenario</code> (as per
+     * {@link #getCurrentScenario()}) from the <code>Statistics</code> of this <code>MergeContext</code>.
+     *
+     * @return the <code>MergeScenarioStatistics</code> or <code>null</code> if there is no current
+     *         <code>MergeScenario</code>
+     */
+    public MergeScenarioStatistics getCurrentScenarioStatistics() {
+        return currentScenario == null ? null : statistics.getScenarioStatistics(currentScenario);
+    }
+
     /**
      * Returns whether statistical data should be collected using the <code>Statistics</code> object returned by
      * {@link #getStatistics()}.
@@ -897,6 +1142,28 @@ public class MergeContext implements Cloneable {
         this.exitOnError = exitOnError;
     }
 
+    /**
+     * Returns whether to merge only the code of a method or class declaration line based if its structured merge (or
+     * rebuilding its AST for pretty printing) fails. The rest of the structured merge result is kept. Failures
+     * outside of such declarations are still handled as configured by {@link #isExitOnError()} and
+     * {@link #isKeepGoing()}.
+     *
+     * @return whether to fall back to merging the failed subtree line based
+     */
+    public boolean isSubtreeFallback() {
+        return subtreeFallback;
+    }
+
+    /**
+     * Sets whether to merge only the code of a method or class declaration line based if its structured merge fails.
+     *
+     * @param subtreeFallback
+     *         the new value
+     */
+    public void setSubtreeFallback(boolean subtreeFallback) {
+        this.subtreeFallback = subtreeFallback;
+    }
+
     /**
      * Returns true if the output is quiet.
      *
@@ -1161,6 +1428,224 @@ public class MergeContext implements Cloneable {
         this.optimizeMultiConflicts = optimizeMultiConflicts;
     }
 
+    /**
+     * Returns whether the left and right revisions are matched against the base revision concurrently.
+     *
+     * @return true iff the base/left and base/right matchings are computed in parallel
+     */
+    public boolean isParallelMatching() {
+        return parallelMatching;
+    }
+
+    /**
+     * Sets whether the left and right revisions are matched against the base revision concurrently.
+     *
+     * @param parallelMatching
+     *         the new value
+     */
+    public void setParallelMatching(boolean parallelMatching) {
+        this.parallelMatching = parallelMatching;
+    }
+
+    /**
+     * Returns whether the matched children of AST nodes are merged concurrently.
+     *
+     * @return true iff child merges are performed in parallel
+     */
+    public boolean isParallelMerge() {
+        return parallelMerge;
+    }
+
+    /**
+     * Sets whether the matched children of AST nodes are merged concurrently.
+     *
+     * @param parallelMerge
+     *         the new value
+     */
+    public void setParallelMerge(boolean parallelMerge) {
+        this.parallelMerge = parallelMerge;
+    }
+
+    /**
+     * Returns the number of files to merge concurrently when merging directories.
+     *
+     * @return the number of threads used for merging files
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of files to merge concurrently when merging directories. Values smaller than 2 cause the files
+     * to be merged sequentially.
+     *
+     * @param threads
+     *         the new value
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Returns whether file merges in which two of the three revisions are identical are resolved by taking the changed
+     * revision verbatim instead of parsing and merging the files. If so, the merges of such subtrees are also not
+     * descended into during structured merges.
+     *
+     * @return true iff trivial file and subtree merges are short-circuited
+     */
+    public boolean isTrivialMerges() {
+        return trivialMerges;
+    }
+
+    /**
+     * Sets whether file merges in which two of the three revisions are identical are resolved by taking the changed
+     * revision verbatim instead of parsing and merging the files. If so, the merges of such subtrees are also not
+     * descended into during structured merges.
+     *
+     * @param trivialMerges
+     *         the new value
+     */
+    public void setTrivialMerges(boolean trivialMerges) {
+        this.trivialMerges = trivialMerges;
+    }
+
+    /**
+     * Returns whether the strategies of a {@link CombinedStrategy} are run concurrently. If so, the result of the
+     * first strategy (in the order they were given) that produces no conflicts is used and the remaining merges are
+     * cancelled.
+     *
+     * @return whether to run the combined strategies speculatively
+     */
+    public boolean isSpeculative() {
+        return speculative;
+    }
+
+    /**
+     * Sets whether the strategies of a {@link CombinedStrategy} are run concurrently.
+     *
+     * @param speculative
+     *         the new value
+     */
+    public void setSpeculative(boolean speculative) {
+        this.speculative = speculative;
+    }
+
+    /**
+     * Cancels the merge performed using this <code>MergeContext</code> and its forks. The merge is aborted the next
+     * time one of its parts checks for cancellation using {@link #checkCancelled()}.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Returns whether the merge performed using this <code>MergeContext</code> has been cancelled.
+     *
+     * @return true iff {@link #cancel()} was called
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Throws an <code>AbortException</code> if the merge performed using this <code>MergeContext</code> has been
+     * cancelled. Called before every part of a merge (parsing, matching and merging a subtree, line based merges)
+     * that is started.
+     *
+     * @throws AbortException
+     *         if the merge has been cancelled
+     */
+    public void checkCancelled() {
+
+        if (cancelled.get()) {
+            throw new AbortException("The merge was cancelled.");
+        }
+    }
+
+    /**
+     * Returns whether line based merges are performed by {@link Diff3} instead of the native libgit2 merge.
+     *
+     * @return whether to use the Java implementation of the line based merge
+     */
+    public boolean isJavaDiff3() {
+        return javaDiff3;
+    }
+
+    /**
+     * Sets whether line based merges are performed by {@link Diff3} instead of the native libgit2 merge.
+     *
+     * @param javaDiff3
+     *         the new value
+     */
+    public void setJavaDiff3(boolean javaDiff3) {
+        this.javaDiff3 = javaDiff3;
+    }
+
+    /**
+     * Returns whether directories are merged by walking the input directories in lockstep. If so, the merged files
+     * are written as soon as they are merged and the <code>FileArtifact</code>s representing input directories do
+     * not have children. Directories are not merged streaming if statistics are collected.
+     *
+     * @return whether to merge directories streaming
+     */
+    public boolean isStreamingDirectories() {
+        return streamingDirectories;
+    }
+
+    /**
+     * Sets whether directories are merged by walking the input directories in lockstep.
+     *
+     * @param streamingDirectories
+     *         the new value
+     */
+    public void setStreamingDirectories(boolean streamingDirectories) {
+        this.streamingDirectories = streamingDirectories;
+    }
+
+    /**
+     * Returns the list the file level <code>MergeOperation</code>s encountered while merging directories are to be
+     * collected in. If <code>null</code> is returned, they are to be applied immediately.
+     *
+     * @return the list of deferred file level <code>MergeOperation</code>s or <code>null</code>
+     */
+    public List<MergeOperation<FileArtifact>> getDeferredFileMerges() {
+        return deferredFileMerges;
+    }
+
+    /**
+     * Sets the list the file level <code>MergeOperation</code>s encountered while merging directories are to be
+     * collected in. Set to <code>null</code> to have them applied immediately.
+     *
+     * @param deferredFileMerges
+     *         the new list or <code>null</code>
+     */
+    public void setDeferredFileMerges(List<MergeOperation<FileArtifact>> deferredFileMerges) {
+        this.deferredFileMerges = deferredFileMerges;
+    }
+
+    /**
+     * Returns the list the line based <code>MergeOperation</code>s of the blocks encountered during a semistructured
+     * merge are to be collected in. If <code>null</code> is returned, they are to be applied immediately.
+     *
+     * @return the list of deferred block level <code>MergeOperation</code>s or <code>null</code>
+     */
+    public List<MergeOperation<FileArtifact>> getDeferredBlockMerges() {
+        return deferredBlockMerges;
+    }
+
+    /**
+     * Sets the list the line based <code>MergeOperation</code>s of the blocks encountered during a semistructured
+     * merge are to be collected in. The list must support concurrent additions if the children of AST nodes are
+     * merged concurrently (see {@link #isParallelMerge()}). Set to <code>null</code> to have them applied
+     * immediately.
+     *
+     * @param deferredBlockMerges
+     *         the new list or <code>null</code>
+     */
+    public void setDeferredBlockMerges(List<MergeOperation<FileArtifact>> deferredBlockMerges) {
+        this.deferredBlockMerges = deferredBlockMerges;
+    }
+
     /**
      * Returns whether the {@link StructuredStrategy} should act semi-structured, that is whether it should perform line
      * based merging on the configured {@link #semiStructuredLevel}.
@@ -1201,6 +1686,71 @@ public class MergeContext implements Cloneable {
         this.semiStructuredLevel = semiStructuredLevel;
     }
 
+    /**
+     * Returns whether semi-structured merges decide per file whether to perform line based merging on the
+     * {@link #getSemiStructuredLevel() level} or to merge the file fully structured. Files are merged fully structured
+     * if they have at most {@link #getAdaptiveMaxNodes()} AST nodes and at least {@link #getAdaptiveMinChange()} of
+     * their blocks were changed.
+     *
+     * @return whether the semi-structured level is chosen adaptively
+     */
+    public boolean isAdaptiveSemiStructured() {
+        return adaptiveSemiStructured;
+    }
+
+    /**
+     * Sets whether semi-structured merges decide per file whether to perform line based merging on the
+     * {@link #getSemiStructuredLevel() level} or to merge the file fully structured.
+     *
+     * @param adaptiveSemiStructured
+     *         the new value
+     */
+    public void setAdaptiveSemiStructured(boolean adaptiveSemiStructured) {
+        this.adaptiveSemiStructured = adaptiveSemiStructured;
+    }
+
+    /**
+     * Returns the maximum number of AST nodes of a file that is merged fully structured in adaptive semi-structured
+     * merges.
+     *
+     * @return the maximum number of AST nodes
+     */
+    public int getAdaptiveMaxNodes() {
+        return adaptiveMaxNodes;
+    }
+
+    /**
+     * Sets the maximum number of AST nodes of a file that is merged fully structured in adaptive semi-structured
+     * merges.
+     *
+     * @param adaptiveMaxNodes
+     *         the new value
+     */
+    public void setAdaptiveMaxNodes(int adaptiveMaxNodes) {
+        this.adaptiveMaxNodes = adaptiveMaxNodes;
+    }
+
+    /**
+     * Returns the minimum proportion (between 0 and 1) of changed blocks of a file that is merged fully structured in
+     * adaptive semi-structured merges.
+     *
+     * @return the minimum proportion of changed blocks
+     */
+    public float getAdaptiveMinChange() {
+        return adaptiveMinChange;
+    }
+
+    /**
+     * Sets the minimum proportion (between 0 and 1) of changed blocks of a file that is merged fully structured in
+     * adaptive semi-structured merges.
+     *
+     * @param adaptiveMinChange
+     *         the new value
+     */
+    public void setAdaptiveMinChange(float adaptiveMinChange) {
+        this.adaptiveMinChange = adaptiveMinChange;
+    }
+
     /**
      * Returns the number of the artifact that should be inspected.
      *
@@ -1358,4 +1908,12 @@ public class MergeContext implements Cloneable {
     public void setCmMatcherFixRandomPercentage(boolean cmMatcherFixRandomPercentage) {
         this.cmMatcherFixRandomPercentage = cmMatcherFixRandomPercentage;
     }
+
+    public int getCmContextRadius() {
+        return cmContextRadius;
+    }
+
+    public void setCmContextRadius(int cmContextRadius) {
+        this.cmContextRadius = cmContextRadius;
+    }
 }
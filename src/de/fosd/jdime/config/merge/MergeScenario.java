@@ -25,7 +25,6 @@ package de.fosd.jdime.config.merge;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -108,7 +107,7 @@ public class MergeScenario<T extends Artifact<T>> {
      */
     public MergeScenario(MergeScenario<T> toCopy) {
         this.mergeType = toCopy.mergeType;
-        this.artifacts = new HashMap<>(toCopy.artifacts);
+        this.artifacts = new LinkedHashMap<>(toCopy.artifacts);
     }
 
     /**
@@ -179,7 +179,7 @@ public class Matcher<T extends Artifact<T>> {
             matchings = match(context, leftRoot, rightRoot);
 
             if (context.getCMMatcherMode() == CMMode.POST_PROCESSOR && matchings.get(leftRoot, rightRoot).map(m -> !m.hasFullyMatched()).orElse(true)) {
-                matchings = cmMatcher.match(context, leftRoot, rightRoot, matchings);
+                matchings = cmMatcher.matchRegions(context, leftRoot, rightRoot, matchings);
             }
         }
 
@@ -212,6 +212,7 @@ public class Matcher<T extends Artifact<T>> {
      * @see MatcherInterface#match(MergeContext, Artifact, Artifact)
      */
     private Matchings<T> match(MergeContext context, T left, T right) {
+        context.checkCancelled();
 
         if (left.isConflict()) {
             Matchings<T> m = Matchings.of(left, right, 0);
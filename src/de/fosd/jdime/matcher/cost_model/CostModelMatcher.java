@@ -26,7 +26,9 @@ package de.fosd.jdime.matcher.cost_model;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
@@ -956,6 +958,217 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
         return match(context, left, right, cmPreFixed);
     }
 
+    /**
+     * Matches only those regions of the trees rooted in <code>left</code> and <code>right</code> that are not already
+     * well matched by <code>preFixed</code>. Starting at the roots, pairs of matched artifacts are descended into as
+     * long as all their children are matched among each other. Pairs that are not, or whose matching percentage is
+     * lower than {@link MergeContext#getCmReMatchBound()}, form the roots of the regions to be optimized. These roots
+     * are then moved up by {@link MergeContext#getCmContextRadius()} levels (as long as the ancestors are matched) to
+     * give the cost model matcher some context. Every region is matched independently (in parallel if
+     * {@link MergeContext#isCmMatcherParallel()}) using only the matchings from <code>preFixed</code> that lie
+     * entirely within it. The resulting new matchings are then added to those from <code>preFixed</code>.
+     *
+     * @param context
+     *         the <code>MergeContext</code> containing the parameters to use for the Flexible Tree Matching
+     *         algorithm
+     * @param left
+     *         the left root
+     * @param right
+     *         the right root
+     * @param preFixed
+     *         the matchings between the left and right tree that are fixed
+     * @return the resulting matchings
+     */
+    public Matchings<T> matchRegions(MergeContext context, T left, T right, Matchings<T> preFixed) {
+        Matchings<T> fixed = preFixed.optimized();
+        Map<T, T> images = images(fixed);
+        List<Tuple<T, T>> regions = regions(context, left, right, fixed);
+
+        if (regions.size() == 1 && regions.get(0).x == left) {
+            return match(context, left, right, preFixed);
+        }
+
+        LOG.fine(() -> "Matching " + left + " and " + right + " in " + regions.size() + " separate regions.");
+
+        Stream<Tuple<T, T>> regionStream = context.isCmMatcherParallel() ? regions.parallelStream() : regions.stream();
+        List<Matchings<T>> regionMatchings = regionStream.map(region -> {
+            Set<T> leftRegion = new HashSet<>(Artifacts.dfs(region.x));
+            Set<T> rightRegion = new HashSet<>(Artifacts.dfs(region.y));
+            CMMatchings<T> regionFixed = new CMMatchings<>(region.x, region.y);
+
+            for (Matching<T> matching : fixed) {
+                if (leftRegion.contains(matching.getLeft()) && rightRegion.contains(matching.getRight())) {
+                    regionFixed.add(new CMMatching<>(matching.getLeft(), matching.getRight()));
+                }
+            }
+
+            return match(context, region.x, region.y, regionFixed);
+        }).collect(toList());
+
+        CMMatchings<T> spliced = new CMMatchings<>(left, right);
+
+        for (Matching<T> matching : fixed) {
+            spliced.add(new CMMatching<>(matching.getLeft(), matching.getRight()));
+        }
+
+        for (Matchings<T> matchings : regionMatchings) {
+            for (Matching<T> matching : matchings) {
+
+                /*
+                 * Artifacts that are matched in 'fixed' keep that matching. This also drops new matchings for
+                 * artifacts whose fixed partner lies outside of the region they were optimized in.
+                 */
+                if (!images.containsKey(matching.getLeft()) && !images.containsKey(matching.getRight())) {
+                    spliced.add(new CMMatching<>(matching.getLeft(), matching.getRight()));
+                }
+            }
+        }
+
+        return convert(spliced);
+    }
+
+    /**
+     * Returns the regions of the trees rooted in <code>left</code> and <code>right</code> that are to be optimized by
+     * {@link #matchRegions(MergeContext, Artifact, Artifact, Matchings)}. If <code>left</code> and <code>right</code>
+     * are not matched to each other, the only region is the whole tree.
+     *
+     * @param context
+     *         the <code>MergeContext</code> containing the rematch bound and context radius
+     * @param left
+     *         the left root
+     * @param right
+     *         the right root
+     * @param fixed
+     *         the optimized fixed matchings between the left and right tree
+     * @return the roots of the regions
+     */
+    List<Tuple<T, T>> regions(MergeContext context, T left, T right, Matchings<T> fixed) {
+        Map<T, Matching<T>> leftMatchings = new HashMap<>();
+        Map<T, T> images = images(fixed);
+
+        if (images.get(left) != right) {
+            return Collections.singletonList(Tuple.of(left, right));
+        }
+
+        for (Matching<T> matching : fixed) {
+            leftMatchings.put(matching.getLeft(), matching);
+        }
+
+        List<Tuple<T, T>> roots = new ArrayList<>();
+        findRegions(left, right, leftMatchings, images, context.getCmReMatchBound(), roots);
+
+        return widenRegions(left, roots, images, context.getCmContextRadius());
+    }
+
+    /**
+     * Returns the matching partners of all artifacts matched in <code>matchings</code>.
+     *
+     * @param matchings
+     *         the matchings
+     * @return a map from every matched artifact to its partner
+     */
+    private static <T extends Artifact<T>> Map<T, T> images(Matchings<T> matchings) {
+        Map<T, T> images = new HashMap<>();
+
+        for (Matching<T> matching : matchings) {
+            images.put(matching.getLeft(), matching.getRight());
+            images.put(matching.getRight(), matching.getLeft());
+        }
+
+        return images;
+    }
+
+    /**
+     * Collects the pairs of matched artifacts below (and including) <code>left</code> and <code>right</code> that
+     * form the roots of regions that should be optimized by the cost model matcher.
+     *
+     * @param left
+     *         the left artifact
+     * @param right
+     *         the right artifact matched to <code>left</code>
+     * @param leftMatchings
+     *         the fixed matchings indexed by their left artifact
+     * @param images
+     *         the matching partners of all fixed artifacts
+     * @param bound
+     *         matchings with a lower percentage than this bound are optimized as a whole
+     * @param regions
+     *         the <code>List</code> to add the roots of the regions to
+     */
+    private void findRegions(T left, T right, Map<T, Matching<T>> leftMatchings, Map<T, T> images, float bound,
+                             List<Tuple<T, T>> regions) {
+
+        Matching<T> matching = leftMatchings.get(left);
+
+        if (matching.hasFullyMatched()) {
+            return;
+        }
+
+        boolean childrenMatched = matching.getPercentage() >= bound;
+
+        for (int i = 0; childrenMatched && i < left.getNumChildren(); i++) {
+            T image = images.get(left.getChild(i));
+            childrenMatched = image != null && image.getParent() == right;
+        }
+
+        for (int i = 0; childrenMatched && i < right.getNumChildren(); i++) {
+            T image = images.get(right.getChild(i));
+            childrenMatched = image != null && image.getParent() == left;
+        }
+
+        if (!childrenMatched) {
+            regions.add(Tuple.of(left, right));
+            return;
+        }
+
+        for (T child : left.getChildren()) {
+            findRegions(child, images.get(child), leftMatchings, images, bound, regions);
+        }
+    }
+
+    /**
+     * Moves the roots of the given <code>regions</code> up by <code>radius</code> levels. A root is only moved up if
+     * the parents of both its artifacts are matched to each other. Regions that end up inside of other regions are
+     * removed.
+     *
+     * @param left
+     *         the left root of the whole tree
+     * @param regions
+     *         the roots of the regions
+     * @param images
+     *         the matching partners of all fixed artifacts
+     * @param radius
+     *         the number of levels to move the roots up by
+     * @return the widened regions
+     */
+    private List<Tuple<T, T>> widenRegions(T left, List<Tuple<T, T>> regions, Map<T, T> images, int radius) {
+        Map<T, Tuple<T, T>> widened = new LinkedHashMap<>();
+
+        for (Tuple<T, T> region : regions) {
+            T l = region.x;
+            T r = region.y;
+
+            for (int i = 0; i < radius && l != left && images.get(l.getParent()) == r.getParent(); i++) {
+                l = l.getParent();
+                r = r.getParent();
+            }
+
+            widened.put(l, Tuple.of(l, r));
+        }
+
+        return widened.values().stream().filter(region -> {
+            for (T a = region.x; a != left; ) {
+                a = a.getParent();
+
+                if (widened.containsKey(a)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }).collect(toList());
+    }
+
     /**
      * Matches the tress rooted in <code>left</code> and <code>right</code> using the Metropolis algorithm and the
      * Flexible Tree Matching cost model.
@@ -983,6 +1196,8 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
         float lowestCost = mObjVal.matchingsCost;
 
         for (int i = 0; i < context.getCostModelIterations(); i++) {
+            context.checkCancelled();
+
             CMMatchings<T> mHat = propose(m, preFixed, parameters);
             AcceptanceProbability mHatAccProb = acceptanceProb(mObjVal.objValue, mHat, parameters);
 
@@ -0,0 +1,831 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.merge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.fosd.jdime.util.parser.Content.Conflict.CONFLICT_DELIM;
+import static de.fosd.jdime.util.parser.Content.Conflict.CONFLICT_END;
+import static de.fosd.jdime.util.parser.Content.Conflict.CONFLICT_START;
+
+/**
+ * A line based three-way merge implemented in Java. It behaves like the merge of <code>git</code> (and libgit2) with
+ * the default options:
+ * <ul>
+ *     <li>the left and right revisions are diffed against the base revision using the Myers algorithm,</li>
+ *     <li>changes of both sides that overlap or touch in the base revision conflict unless they are identical,</li>
+ *     <li>conflicts are refined by diffing their left and right lines, lines common to both stay outside of the
+ *     conflict markers, and</li>
+ *     <li>conflicts that are separated by at most {@value #MAX_CONFLICT_GAP} unchanged lines are combined.</li>
+ * </ul>
+ * Conflicts are marked like <code>git</code> does without printing the base lines. Lines are compared exactly
+ * (including their terminators) after mapping every distinct line of the three revisions to an <code>int</code>.
+ */
+public final class Diff3 {
+
+    /**
+     * The maximum number of unchanged lines between two conflicts for them to be combined into one.
+     */
+    private static final int MAX_CONFLICT_GAP = 3;
+
+    /**
+     * The lines of a text and their ids. Lines are terminated by <code>\n</code> and include their terminator. The
+     * last line does not have a terminator if the text does not end in one.
+     */
+    private static final class Lines {
+
+        private final String text;
+        private final int[] starts;
+        private final int[] ids;
+
+        private Lines(String text, LineIds lineIds) {
+            int[] starts = new int[16];
+            int size = 0;
+
+            for (int start = 0; start < text.length(); size++) {
+
+                if (size + 1 == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+
+                starts[size] = start;
+
+                int end = text.indexOf('\n', start);
+                start = end == -1 ? text.length() : end + 1;
+            }
+
+            starts[size] = text.length();
+
+            this.text = text;
+            this.starts = starts;
+            this.ids = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                ids[i] = lineIds.id(text, starts[i], starts[i + 1]);
+            }
+        }
+
+        private int size() {
+            return ids.length;
+        }
+    }
+
+    /**
+     * Assigns consecutive ids to distinct lines. Lines are identified by their position in a text to avoid copying
+     * them.
+     */
+    private static final class LineIds {
+
+        private int[] table = new int[1024];
+        private String[] texts = new String[256];
+        private int[] starts = new int[256];
+        private int[] ends = new int[256];
+        private int[] hashes = new int[256];
+        private int size = 0;
+
+        /**
+         * Returns the id of the line <code>[start, end)</code> of <code>text</code>.
+         */
+        private int id(String text, int start, int end) {
+            int hash = 0;
+
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+
+            int slot = slot(hash);
+
+            while (table[slot] != 0) {
+                int id = table[slot] - 1;
+
+                if (hashes[id] == hash && ends[id] - starts[id] == end - start
+                        && text.regionMatches(start, texts[id], starts[id], end - start)) {
+                    return id;
+                }
+
+                slot = (slot + 1) & (table.length - 1);
+            }
+
+            if (size == texts.length) {
+                texts = Arrays.copyOf(texts, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+
+            texts[size] = text;
+            starts[size] = start;
+            ends[size] = end;
+            hashes[size] = hash;
+            table[slot] = size + 1;
+
+            if (++size * 2 > table.length) {
+                table = new int[table.length * 2];
+
+                for (int id = 0; id < size; id++) {
+                    slot = slot(hashes[id]);
+
+                    while (table[slot] != 0) {
+                        slot = (slot + 1) & (table.length - 1);
+                    }
+
+                    table[slot] = id + 1;
+                }
+            }
+
+            return size - 1;
+        }
+
+        private int slot(int hash) {
+            return (hash ^ (hash >>> 16)) * 0x9E3779B1 >>> 8 & (table.length - 1);
+        }
+    }
+
+    /**
+     * The kinds of <code>Chunk</code>s.
+     */
+    private enum Kind {
+        /**
+         * The lines are the same in both revisions.
+         */
+        STABLE,
+        /**
+         * Only the left revision changed the lines.
+         */
+        LEFT,
+        /**
+         * Only the right revision changed the lines.
+         */
+        RIGHT,
+        /**
+         * Both revisions changed the lines differently.
+         */
+        CONFLICT
+    }
+
+    /**
+     * The lines <code>[leftStart, leftEnd)</code> and <code>[rightStart, rightEnd)</code> of the left and right
+     * revision that correspond to each other. The merge result consists of a sequence of chunks covering both
+     * revisions.
+     */
+    private static final class Chunk {
+
+        private final Kind kind;
+        private final int leftStart;
+        private int leftEnd;
+        private final int rightStart;
+        private int rightEnd;
+
+        private Chunk(Kind kind, int leftStart, int leftEnd, int rightStart, int rightEnd) {
+            this.kind = kind;
+            this.leftStart = leftStart;
+            this.leftEnd = leftEnd;
+            this.rightStart = rightStart;
+            this.rightEnd = rightEnd;
+        }
+    }
+
+    /**
+     * The base lines <code>[baseStart, baseEnd)</code> that are replaced by the lines
+     * <code>[sideStart, sideEnd)</code> of a revision.
+     */
+    private static final class Hunk {
+
+        private final int baseStart;
+        private final int baseEnd;
+        private final int sideStart;
+        private final int sideEnd;
+
+        private Hunk(int baseStart, int baseEnd, int sideStart, int sideEnd) {
+            this.baseStart = baseStart;
+            this.baseEnd = baseEnd;
+            this.sideStart = sideStart;
+            this.sideEnd = sideEnd;
+        }
+    }
+
+    /**
+     * Utility class.
+     */
+    private Diff3() {}
+
+    /**
+     * Merges the given revisions line based.
+     *
+     * @param left
+     *         the left revision
+     * @param base
+     *         the base revision
+     * @param right
+     *         the right revision
+     * @param leftLabel
+     *         the label to append to the conflict start markers, may be <code>null</code>
+     * @param rightLabel
+     *         the label to append to the conflict end markers, may be <code>null</code>
+     * @return the merged text
+     */
+    public static String merge(String left, String base, String right, String leftLabel, String rightLabel) {
+        LineIds ids = new LineIds();
+
+        Lines l = new Lines(left, ids);
+        Lines b = new Lines(base, ids);
+        Lines r = new Lines(right, ids);
+
+        List<Chunk> chunks = combineConflicts(refineConflicts(l, r, merge(l, b, r)));
+        String newline = left.contains("\r\n") ? "\r\n" : "\n";
+
+        StringBuilder merged = new StringBuilder(Math.max(left.length(), right.length()));
+
+        for (Chunk chunk : chunks) {
+
+            switch (chunk.kind) {
+                case STABLE:
+                case LEFT:
+                    append(merged, l, chunk.leftStart, chunk.leftEnd, null);
+                    break;
+                case RIGHT:
+                    append(merged, r, chunk.rightStart, chunk.rightEnd, null);
+                    break;
+                case CONFLICT:
+                    label(merged.append(CONFLICT_START), leftLabel).append(newline);
+                    append(merged, l, chunk.leftStart, chunk.leftEnd, newline);
+                    merged.append(CONFLICT_DELIM).append(newline);
+                    append(merged, r, chunk.rightStart, chunk.rightEnd, newline);
+                    label(merged.append(CONFLICT_END), rightLabel).append(newline);
+                    break;
+            }
+        }
+
+        return merged.toString();
+    }
+
+    /**
+     * Appends a space and the <code>label</code> (if it is not <code>null</code>) to the <code>builder</code>.
+     */
+    private static StringBuilder label(StringBuilder builder, String label) {
+        return label == null ? builder : builder.append(' ').append(label);
+    }
+
+    /**
+     * Appends the lines <code>[start, end)</code> to the <code>builder</code>. If <code>newline</code> is not
+     * <code>null</code>, it is appended if the last line is not terminated.
+     */
+    private static void append(StringBuilder builder, Lines lines, int start, int end, String newline) {
+
+        builder.append(lines.text, lines.starts[start], lines.starts[end]);
+
+        if (newline != null && end > start && lines.text.charAt(lines.starts[end] - 1) != '\n') {
+            builder.append(newline);
+        }
+    }
+
+    /**
+     * Merges the given revisions into a sequence of chunks. Changes of only one side are taken, changes of both sides
+     * that overlap or touch in the base revision are conflicts unless they are identical.
+     */
+    private static List<Chunk> merge(Lines left, Lines base, Lines right) {
+        List<Hunk> leftHunks = hunks(base.ids, left.ids, true);
+        List<Hunk> rightHunks = hunks(base.ids, right.ids, true);
+        List<Chunk> chunks = new ArrayList<>();
+
+        int basePos = 0;
+        int leftPos = 0;
+        int rightPos = 0;
+        int li = 0;
+        int ri = 0;
+
+        while (li < leftHunks.size() || ri < rightHunks.size()) {
+            int start = Math.min(li < leftHunks.size() ? leftHunks.get(li).baseStart : Integer.MAX_VALUE,
+                                 ri < rightHunks.size() ? rightHunks.get(ri).baseStart : Integer.MAX_VALUE);
+
+            addStable(chunks, leftPos, leftPos + start - basePos, rightPos, rightPos + start - basePos);
+            leftPos += start - basePos;
+            rightPos += start - basePos;
+
+            // Collect the hunks of both sides that overlap or touch the region.
+            int end = start;
+            Hunk lastLeft = null;
+            Hunk lastRight = null;
+
+            while (true) {
+
+                if (li < leftHunks.size() && leftHunks.get(li).baseStart <= end) {
+                    lastLeft = leftHunks.get(li++);
+                    end = Math.max(end, lastLeft.baseEnd);
+                } else if (ri < rightHunks.size() && rightHunks.get(ri).baseStart <= end) {
+                    lastRight = rightHunks.get(ri++);
+                    end = Math.max(end, lastRight.baseEnd);
+                } else {
+                    break;
+                }
+            }
+
+            int leftEnd = lastLeft != null ? lastLeft.sideEnd + end - lastLeft.baseEnd : leftPos + end - start;
+            int rightEnd = lastRight != null ? lastRight.sideEnd + end - lastRight.baseEnd : rightPos + end - start;
+
+            Kind kind;
+
+            if (lastRight == null) {
+                kind = Kind.LEFT;
+            } else if (lastLeft == null) {
+                kind = Kind.RIGHT;
+            } else if (same(left, leftPos, leftEnd, right, rightPos, rightEnd)) {
+                kind = Kind.STABLE;
+            } else {
+                kind = Kind.CONFLICT;
+            }
+
+            chunks.add(new Chunk(kind, leftPos, leftEnd, rightPos, rightEnd));
+
+            basePos = end;
+            leftPos = leftEnd;
+            rightPos = rightEnd;
+        }
+
+        addStable(chunks, leftPos, left.size(), rightPos, right.size());
+
+        return chunks;
+    }
+
+    /**
+     * Adds a <code>STABLE</code> chunk to <code>chunks</code> if it is not empty.
+     */
+    private static void addStable(List<Chunk> chunks, int leftStart, int leftEnd, int rightStart, int rightEnd) {
+
+        if (leftEnd > leftStart) {
+            chunks.add(new Chunk(Kind.STABLE, leftStart, leftEnd, rightStart, rightEnd));
+        }
+    }
+
+    /**
+     * Returns whether the lines <code>[leftStart, leftEnd)</code> of <code>left</code> are the same as the lines
+     * <code>[rightStart, rightEnd)</code> of <code>right</code>.
+     */
+    private static boolean same(Lines left, int leftStart, int leftEnd, Lines right, int rightStart, int rightEnd) {
+
+        if (leftEnd - leftStart != rightEnd - rightStart) {
+            return false;
+        }
+
+        for (int i = 0; i < leftEnd - leftStart; i++) {
+
+            if (left.ids[leftStart + i] != right.ids[rightStart + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Splits every conflict whose sides are both non-empty by diffing its left and right lines. Lines common to both
+     * sides are moved out of the conflict.
+     */
+    private static List<Chunk> refineConflicts(Lines left, Lines right, List<Chunk> chunks) {
+        List<Chunk> refined = new ArrayList<>(chunks.size());
+
+        for (Chunk chunk : chunks) {
+
+            if (chunk.kind != Kind.CONFLICT || chunk.leftStart == chunk.leftEnd || chunk.rightStart == chunk.rightEnd) {
+                refined.add(chunk);
+                continue;
+            }
+
+            int[] l = Arrays.copyOfRange(left.ids, chunk.leftStart, chunk.leftEnd);
+            int[] r = Arrays.copyOfRange(right.ids, chunk.rightStart, chunk.rightEnd);
+            int leftPos = chunk.leftStart;
+            int rightPos = chunk.rightStart;
+
+            for (Hunk hunk : hunks(l, r, false)) {
+                int leftStart = chunk.leftStart + hunk.baseStart;
+                int rightStart = chunk.rightStart + hunk.sideStart;
+
+                addStable(refined, leftPos, leftStart, rightPos, rightStart);
+
+                leftPos = chunk.leftStart + hunk.baseEnd;
+                rightPos = chunk.rightStart + hunk.sideEnd;
+                refined.add(new Chunk(Kind.CONFLICT, leftStart, leftPos, rightStart, rightPos));
+            }
+
+            addStable(refined, leftPos, chunk.leftEnd, rightPos, chunk.rightEnd);
+        }
+
+        return refined;
+    }
+
+    /**
+     * Combines conflicts that are separated by at most {@value #MAX_CONFLICT_GAP} lines that are the same in both
+     * revisions (and no one-sided changes) into one conflict.
+     */
+    private static List<Chunk> combineConflicts(List<Chunk> chunks) {
+        List<Chunk> combined = new ArrayList<>(chunks.size());
+        int i = 0;
+
+        while (i < chunks.size()) {
+            Chunk chunk = chunks.get(i++);
+            combined.add(chunk);
+
+            if (chunk.kind != Kind.CONFLICT) {
+                continue;
+            }
+
+            while (true) {
+                int next = i;
+                int gap = 0;
+
+                while (next < chunks.size() && chunks.get(next).kind == Kind.STABLE) {
+                    gap += chunks.get(next).leftEnd - chunks.get(next).leftStart;
+                    next++;
+                }
+
+                if (next == chunks.size() || chunks.get(next).kind != Kind.CONFLICT || gap > MAX_CONFLICT_GAP) {
+                    break;
+                }
+
+                chunk.leftEnd = chunks.get(next).leftEnd;
+                chunk.rightEnd = chunks.get(next).rightEnd;
+                i = next + 1;
+            }
+        }
+
+        return combined;
+    }
+
+    /**
+     * Returns the hunks in which <code>b</code> differs from <code>a</code>.
+     *
+     * @param a
+     *         the lines of the first revision
+     * @param b
+     *         the lines of the second revision
+     * @param compact
+     *         whether to slide the changes like {@link #compact(int[], boolean[], boolean[])} does
+     * @return the hunks ordered by their position
+     */
+    private static List<Hunk> hunks(int[] a, int[] b, boolean compact) {
+        int[] matches = diff(a, b);
+        boolean[] aChanged = new boolean[a.length + 1];
+        boolean[] bChanged = new boolean[b.length + 1];
+
+        Arrays.fill(bChanged, 0, b.length, true);
+
+        for (int i = 0; i < a.length; i++) {
+
+            if (matches[i] == -1) {
+                aChanged[i] = true;
+            } else {
+                bChanged[matches[i]] = false;
+            }
+        }
+
+        if (compact) {
+            compact(a, aChanged, bChanged);
+            compact(b, bChanged, aChanged);
+        }
+
+        List<Hunk> hunks = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+
+        while (i < a.length || j < b.length) {
+
+            if (!aChanged[i] && !bChanged[j]) {
+                i++;
+                j++;
+                continue;
+            }
+
+            int aStart = i;
+            int bStart = j;
+
+            while (aChanged[i]) {
+                i++;
+            }
+
+            while (bChanged[j]) {
+                j++;
+            }
+
+            hunks.add(new Hunk(aStart, i, bStart, j));
+        }
+
+        return hunks;
+    }
+
+    /**
+     * Slides the groups of changed lines of a revision like <code>git</code> does to make diffs (and therefore merges)
+     * independent of the choices made by the diff algorithm. Every group is moved as far down as possible unless it can
+     * be aligned with a group of changes in the <code>other</code> revision.
+     *
+     * @param ids
+     *         the lines of the revision
+     * @param changed
+     *         whether the lines of the revision are changed followed by <code>false</code>
+     * @param other
+     *         whether the lines of the other revision are changed followed by <code>false</code>
+     */
+    private static void compact(int[] ids, boolean[] changed, boolean[] other) {
+        int start = 0;
+        int end = groupEnd(changed, 0);
+        int otherStart = 0;
+        int otherEnd = groupEnd(other, 0);
+
+        while (true) {
+
+            if (end != start) {
+                int size;
+                int earliestEnd;
+                int endMatchingOther;
+
+                do {
+                    size = end - start;
+
+                    while (start > 0 && ids[start - 1] == ids[end - 1]) {
+                        changed[--start] = true;
+                        changed[--end] = false;
+                        start = groupStart(changed, start);
+
+                        otherEnd = otherStart - 1;
+                        otherStart = groupStart(other, otherEnd);
+                    }
+
+                    earliestEnd = end;
+                    endMatchingOther = otherEnd > otherStart ? end : -1;
+
+                    while (end < ids.length && ids[start] == ids[end]) {
+                        changed[start++] = false;
+                        changed[end++] = true;
+                        end = groupEnd(changed, end);
+
+                        otherStart = otherEnd + 1;
+                        otherEnd = groupEnd(other, otherStart);
+
+                        if (otherEnd > otherStart) {
+                            endMatchingOther = end;
+                        }
+                    }
+                } while (size != end - start);
+
+                if (end != earliestEnd && endMatchingOther != -1) {
+
+                    while (otherEnd == otherStart) {
+                        changed[--start] = true;
+                        changed[--end] = false;
+                        start = groupStart(changed, start);
+
+                        otherEnd = otherStart - 1;
+                        otherStart = groupStart(other, otherEnd);
+                    }
+                }
+            }
+
+            if (end == ids.length) {
+                break;
+            }
+
+            start = end + 1;
+            end = groupEnd(changed, start);
+            otherStart = otherEnd + 1;
+            otherEnd = groupEnd(other, otherStart);
+        }
+    }
+
+    /**
+     * Returns the start of the group of changed lines ending at <code>end</code>.
+     */
+    private static int groupStart(boolean[] changed, int end) {
+
+        while (end > 0 && changed[end - 1]) {
+            end--;
+        }
+
+        return end;
+    }
+
+    /**
+     * Returns the end of the group of changed lines starting at <code>start</code>.
+     */
+    private static int groupEnd(boolean[] changed, int start) {
+
+        while (changed[start]) {
+            start++;
+        }
+
+        return start;
+    }
+
+    /**
+     * Computes a longest common subsequence of <code>a</code> and <code>b</code> using the linear space variant of
+     * the Myers algorithm. Like <code>git</code>, elements that do not occur in the other sequence are discarded
+     * before running the algorithm since they can not be part of the subsequence.
+     *
+     * @param a
+     *         the first sequence of non-negative numbers
+     * @param b
+     *         the second sequence of non-negative numbers
+     * @return for every element of <code>a</code>, the index of the matching element of <code>b</code> or -1
+     */
+    static int[] diff(int[] a, int[] b) {
+        int max = -1;
+
+        for (int id : a) {
+            max = Math.max(max, id);
+        }
+
+        for (int id : b) {
+            max = Math.max(max, id);
+        }
+
+        boolean[] inA = new boolean[max + 1];
+        boolean[] inB = new boolean[max + 1];
+
+        for (int id : a) {
+            inA[id] = true;
+        }
+
+        for (int id : b) {
+            inB[id] = true;
+        }
+
+        int[] aIndices = common(a, inB);
+        int[] bIndices = common(b, inA);
+        int[] aCommon = new int[aIndices.length];
+        int[] bCommon = new int[bIndices.length];
+
+        for (int i = 0; i < aIndices.length; i++) {
+            aCommon[i] = a[aIndices[i]];
+        }
+
+        for (int i = 0; i < bIndices.length; i++) {
+            bCommon[i] = b[bIndices[i]];
+        }
+
+        int[] commonMatches = new int[aCommon.length];
+        int[] matches = new int[a.length];
+
+        Arrays.fill(commonMatches, -1);
+        Arrays.fill(matches, -1);
+        diff(aCommon, 0, aCommon.length, bCommon, 0, bCommon.length, commonMatches);
+
+        for (int i = 0; i < commonMatches.length; i++) {
+
+            if (commonMatches[i] != -1) {
+                matches[aIndices[i]] = bIndices[commonMatches[i]];
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Returns the indices of the elements of <code>sequence</code> that occur in the other sequence.
+     */
+    private static int[] common(int[] sequence, boolean[] inOther) {
+        int[] indices = new int[sequence.length];
+        int size = 0;
+
+        for (int i = 0; i < sequence.length; i++) {
+
+            if (inOther[sequence[i]]) {
+                indices[size++] = i;
+            }
+        }
+
+        return Arrays.copyOf(indices, size);
+    }
+
+    /**
+     * Matches the elements <code>a[aLo, aHi)</code> and <code>b[bLo, bHi)</code>.
+     */
+    private static void diff(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi, int[] matches) {
+
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            matches[aLo++] = bLo++;
+        }
+
+        while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+            matches[--aHi] = --bHi;
+        }
+
+        if (aLo == aHi || bLo == bHi) {
+            return;
+        }
+
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int[] forward = new int[2 * maxD + 2];
+        int[] backward = new int[2 * maxD + 2];
+
+        Arrays.fill(forward, -1);
+        Arrays.fill(backward, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int kfStart = 0, kfEnd = 0, kbStart = 0, kbEnd = 0;
+
+        for (int d = 0; d < maxD; d++) {
+
+            for (int k = -d + kfStart; k <= d - kfEnd; k += 2) {
+                int kOffset = offset + k;
+                int x;
+
+                if (k == -d || (k != d && forward[kOffset - 1] < forward[kOffset + 1])) {
+                    x = forward[kOffset + 1];
+                } else {
+                    x = forward[kOffset - 1] + 1;
+                }
+
+                int y = x - k;
+
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x++;
+                    y++;
+                }
+
+                forward[kOffset] = x;
+
+                if (x > n) {
+                    kfEnd += 2;
+                } else if (y > m) {
+                    kfStart += 2;
+                } else if (odd) {
+                    int bOffset = offset + delta - k;
+
+                    if (bOffset >= 0 && bOffset < backward.length && backward[bOffset] != -1 && x >= n - backward[bOffset]) {
+                        diff(a, aLo, aLo + x, b, bLo, bLo + y, matches);
+                        diff(a, aLo + x, aHi, b, bLo + y, bHi, matches);
+                        return;
+                    }
+                }
+            }
+
+            for (int k = -d + kbStart; k <= d - kbEnd; k += 2) {
+                int kOffset = offset + k;
+                int x;
+
+                if (k == -d || (k != d && backward[kOffset - 1] < backward[kOffset + 1])) {
+                    x = backward[kOffset + 1];
+                } else {
+                    x = backward[kOffset - 1] + 1;
+                }
+
+                int y = x - k;
+
+                while (x < n && y < m && a[aHi - x - 1] == b[bHi - y - 1]) {
+                    x++;
+                    y++;
+                }
+
+                backward[kOffset] = x;
+
+                if (x > n) {
+                    kbEnd += 2;
+                } else if (y > m) {
+                    kbStart += 2;
+                } else if (!odd) {
+                    int fOffset = offset + delta - k;
+
+                    if (fOffset >= 0 && fOffset < forward.length && forward[fOffset] != -1) {
+                        int fx = forward[fOffset];
+                        int fy = offset + fx - fOffset;
+
+                        if (fx >= n - x) {
+                            diff(a, aLo, aLo + fx, b, bLo, bLo + fy, matches);
+                            diff(a, aLo + fx, aHi, b, bLo + fy, bHi, matches);
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        // There are no common elements.
+    }
+}
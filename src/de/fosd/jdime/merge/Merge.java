@@ -24,6 +24,8 @@
 package de.fosd.jdime.merge;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Logger;
 
 import de.fosd.jdime.artifact.Artifact;
@@ -38,7 +40,10 @@ import de.fosd.jdime.operations.AddOperation;
 import de.fosd.jdime.operations.ConflictOperation;
 import de.fosd.jdime.operations.MergeOperation;
 
+import static de.fosd.jdime.artifact.Artifacts.copyTree;
 import static de.fosd.jdime.artifact.Artifacts.root;
+import static de.fosd.jdime.stats.KeyEnums.Type.DIRECTORY;
+import static de.fosd.jdime.stats.KeyEnums.Type.FILE;
 import static de.fosd.jdime.strdump.DumpMode.PLAINTEXT_TREE;
 
 /**
@@ -63,6 +68,8 @@ public class Merge<T extends Artifact<T>> implements MergeInterface<T> {
      */
     @Override
     public void merge(MergeOperation<T> operation, MergeContext context) {
+        context.checkCancelled();
+
         logprefix = operation.getId() + " - ";
         MergeScenario<T> triple = operation.getMergeScenario();
         T left = triple.getLeft();
@@ -81,20 +88,24 @@ public class Merge<T extends Artifact<T>> implements MergeInterface<T> {
             if (!base.isEmpty()) {
                 // 3-way merge
 
-                // diff base left
-                matcher = new Matcher<>(base, left);
-                m = matcher.match(context, Color.GREEN).get(base, left).get();
+                if (context.isParallelMatching()) {
+                    matcher = matchBaseConcurrently(context, left, base, right);
+                } else {
+                    // diff base left
+                    matcher = new Matcher<>(base, left);
+                    m = matcher.match(context, Color.GREEN).get(base, left).get();
 
-                if (m.getScore() == 0) {
-                    LOG.fine(() -> String.format("%s and %s have no matches.", base.getId(), left.getId()));
-                }
+                    if (m.getScore() == 0) {
+                        LOG.fine(() -> String.format("%s and %s have no matches.", base.getId(), left.getId()));
+                    }
 
-                // diff base right
-                matcher = new Matcher<>(matcher, base, right);
-                m = matcher.match(context, Color.GREEN).get(base, right).get();
+                    // diff base right
+                    matcher = new Matcher<>(matcher, base, right);
+                    m = matcher.match(context, Color.GREEN).get(base, right).get();
 
-                if (m.getScore() == 0) {
-                    LOG.fine(() -> String.format("%s and %s have no matches.", base.getId(), right.getId()));
+                    if (m.getScore() == 0) {
+                        LOG.fine(() -> String.format("%s and %s have no matches.", base.getId(), right.getId()));
+                    }
                 }
             }
 
@@ -130,6 +141,10 @@ public class Merge<T extends Artifact<T>> implements MergeInterface<T> {
             target.copyMatches(left);
         }
 
+        if (context.isTrivialMerges() && mergeTrivially(left, base, right, target, context)) {
+            return;
+        }
+
         // check if one or both the nodes have no children
         List<T> leftChildren = left.getChildren();
         List<T> rightChildren = right.getChildren();
@@ -236,6 +251,172 @@ public class Merge<T extends Artifact<T>> implements MergeInterface<T> {
         }
     }
 
+    /**
+     * Matches <code>base</code> with <code>left</code> and <code>base</code> with <code>right</code> concurrently.
+     * The two passes only share the base tree whose matchings are stored per <code>Revision</code>. The tree hashes
+     * of the base tree are calculated before starting the passes so that they are only computed once.
+     *
+     * @param context
+     *         the <code>MergeContext</code>
+     * @param left
+     *         the left tree
+     * @param base
+     *         the base tree
+     * @param right
+     *         the right tree
+     * @return the <code>Matcher</code> used for the base/left pass whose caches may be reused
+     */
+    private Matcher<T> matchBaseConcurrently(MergeContext context, T left, T base, T right) {
+        Matcher<T> leftMatcher = new Matcher<>(base, left);
+        Matcher<T> rightMatcher = new Matcher<>(base, right);
+
+        base.getTreeHash();
+
+        CompletableFuture<Matching<T>> rightMatching = CompletableFuture.supplyAsync(() ->
+                rightMatcher.match(context, Color.GREEN).get(base, right).get()
+        );
+
+        Matching<T> leftMatching = leftMatcher.match(context, Color.GREEN).get(base, left).get();
+        Matching<T> m;
+
+        try {
+            m = rightMatching.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw e;
+            }
+        }
+
+        if (leftMatching.getScore() == 0) {
+            LOG.fine(() -> String.format("%s and %s have no matches.", base.getId(), left.getId()));
+        }
+
+        if (m.getScore() == 0) {
+            LOG.fine(() -> String.format("%s and %s have no matches.", base.getId(), right.getId()));
+        }
+
+        return leftMatcher;
+    }
+
+    /**
+     * Merges the children of <code>left</code> and <code>right</code> without descending into their subtrees if the
+     * subtrees are identical or one of them is identical to <code>base</code> (as per {@link Artifact#getTreeHash()}).
+     * In that case the result of the merge is known in advance and copies of the children of the revision that
+     * differs from <code>base</code> (or of <code>left</code> if both are identical) are added to the
+     * <code>target</code>. File and directory merges as well as conditional merges are never shortcut.
+     * <p>
+     * The copies are added without applying <code>Operation</code>s, which would count them as added elements. Since
+     * the statistics of a full merge of the subtrees can not be derived from the copies, the merge is not shortcut
+     * if statistics are collected.
+     *
+     * @param left
+     *         the left artifact
+     * @param base
+     *         the base artifact
+     * @param right
+     *         the right artifact
+     * @param target
+     *         the target artifact
+     * @param context
+     *         the <code>MergeContext</code>
+     * @return true iff the children were merged
+     */
+    private boolean mergeTrivially(T left, T base, T right, T target, MergeContext context) {
+
+        if (context.isConditionalMerge() || left.isChoice() || right.isChoice()) {
+            return false;
+        }
+
+        if (context.hasStatistics()) {
+            return false;
+        }
+
+        if (target.getType() == FILE || target.getType() == DIRECTORY) {
+            return false;
+        }
+
+        T result;
+
+        if (left.getTreeHash().equals(right.getTreeHash())) {
+            result = left;
+        } else if (base.isEmpty()) {
+            return false;
+        } else if (base.getTreeHash().equals(left.getTreeHash())) {
+            result = right;
+        } else if (base.getTreeHash().equals(right.getTreeHash())) {
+            result = left;
+        } else {
+            return false;
+        }
+
+        LOG.finest(() -> String.format("%s Subtree of %s is the result of the merge", prefix(), result.getId()));
+
+        for (T child : result.getChildren()) {
+            target.addChild(copyTree(child));
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns whether the child <code>MergeOperation</code>s of the given <code>target</code> are to be collected
+     * and applied concurrently using {@link #applyChildMerges(List, MergeContext)}. File and directory merges are
+     * always performed sequentially.
+     *
+     * @param context
+     *         the <code>MergeContext</code>
+     * @param target
+     *         the target whose children are being merged
+     * @param <T>
+     *         the type of the artifacts
+     * @return true iff the child merges of <code>target</code> should be performed in parallel
+     */
+    static <T extends Artifact<T>> boolean mergeChildrenConcurrently(MergeContext context, T target) {
+        return context.isParallelMerge() && target.getType() != FILE && target.getType() != DIRECTORY;
+    }
+
+    /**
+     * Applies the given child <code>MergeOperation</code>s concurrently using the common fork/join pool. The targets
+     * of the operations must already have been added to their parents so that the order of the merged children
+     * does not depend on the order in which the operations finish.
+     * <p>
+     * ExtendJ ASTs are not thread-safe: accessing a child may rewrite it and attributes cache their values in the
+     * nodes. Merging <code>ASTNodeArtifact</code>s concurrently is nevertheless safe because the concurrent merges
+     * only read the ExtendJ nodes of the merged revisions:
+     * <ul>
+     *     <li>All rewrites are resolved when the tree is constructed, so accessing a child returns the cached result
+     *     of its rewrite and does not change the tree.</li>
+     *     <li>The tree hashes and the matchings are computed before any children are merged.</li>
+     *     <li>Comparing nodes and creating conflicts and choices only accesses the class, the tokens and the
+     *     children of the nodes (see <code>ASTNode#getMatchingRepresentation()</code>) and clones them. No
+     *     attributes are evaluated.</li>
+     *     <li>The ExtendJ nodes of the target tree are only modified when the AST is rebuilt after the whole tree
+     *     has been merged.</li>
+     * </ul>
+     * The attribute evaluation state ExtendJ shares between all ASTs is confined to the current thread (see
+     * <code>ParserIsolation</code>).
+     *
+     * @param childMerges
+     *         the <code>MergeOperation</code>s to apply
+     * @param context
+     *         the <code>MergeContext</code>
+     * @param <T>
+     *         the type of the artifacts
+     */
+    static <T extends Artifact<T>> void applyChildMerges(List<MergeOperation<T>> childMerges, MergeContext context) {
+        if (childMerges.size() == 1) {
+            childMerges.get(0).apply(context);
+        } else if (!childMerges.isEmpty()) {
+            childMerges.parallelStream().forEach(op -> op.apply(context));
+        }
+    }
+
     /**
      * Returns the logging prefix.
      *
@@ -33,7 +33,9 @@ import de.fosd.jdime.operations.ConflictOperation;
 import de.fosd.jdime.operations.DeleteOperation;
 import de.fosd.jdime.operations.MergeOperation;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Logger;
 
 import static de.fosd.jdime.config.merge.MergeScenario.BASE;
@@ -101,6 +103,8 @@ public class OrderedMerge<T extends Artifact<T>> implements MergeInterface<T> {
         }
 
         T target = operation.getTarget();
+        boolean parallel = Merge.mergeChildrenConcurrently(context, target);
+        List<MergeOperation<T>> childMerges = new ArrayList<>();
 
         boolean leftDone = false;
         boolean rightDone = false;
@@ -155,7 +159,12 @@ public class OrderedMerge<T extends Artifact<T>> implements MergeInterface<T> {
 
                 MergeScenario<T> childTriple = new MergeScenario<>(mergeType, leftChild, baseChild, rightChild);
                 MergeOperation<T> mergeOp = new MergeOperation<>(childTriple, targetChild);
-                mergeOp.apply(context);
+
+                if (parallel) {
+                    childMerges.add(mergeOp);
+                } else {
+                    mergeOp.apply(context);
+                }
 
                 moveLeft = true;
                 moveRight = true;
@@ -565,6 +574,8 @@ public class OrderedMerge<T extends Artifact<T>> implements MergeInterface<T> {
             }
         }
 
+        Merge.applyChildMerges(childMerges, context);
+
         if (assertsEnabled) {
             MergeScenario<T> mergeScenario = operation.getMergeScenario();
             T left = mergeScenario.getLeft();
@@ -23,7 +23,9 @@
  */
 package de.fosd.jdime.merge;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -70,6 +72,8 @@ public class UnorderedMerge<T extends Artifact<T>> implements MergeInterface<T>
         T base = triple.getBase();
         T right = triple.getRight();
         T target = operation.getTarget();
+        boolean parallel = Merge.mergeChildrenConcurrently(context, target);
+        List<MergeOperation<T>> childMerges = new ArrayList<>();
         logprefix = operation.getId() + " - ";
 
         assert (left.matches(right));
@@ -229,7 +233,12 @@ public class UnorderedMerge<T extends Artifact<T>> implements MergeInterface<T>
 
                     leftChild.setMerged();
                     rightMatch.setMerged();
-                    mergeOp.apply(context);
+
+                    if (parallel) {
+                        childMerges.add(mergeOp);
+                    } else {
+                        mergeOp.apply(context);
+                    }
                 }
 
                 if (leftIt.hasNext()) {
@@ -261,7 +270,12 @@ public class UnorderedMerge<T extends Artifact<T>> implements MergeInterface<T>
 
                     leftMatch.setMerged();
                     rightChild.setMerged();
-                    mergeOp.apply(context);
+
+                    if (parallel) {
+                        childMerges.add(mergeOp);
+                    } else {
+                        mergeOp.apply(context);
+                    }
                 }
 
                 if (rightIt.hasNext()) {
@@ -278,6 +292,8 @@ public class UnorderedMerge<T extends Artifact<T>> implements MergeInterface<T>
                 });
             }
         }
+
+        Merge.applyChildMerges(childMerges, context);
     }
 
     /**
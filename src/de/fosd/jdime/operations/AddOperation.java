@@ -29,7 +29,6 @@ import java.util.logging.Logger;
 import de.fosd.jdime.artifact.Artifact;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
-import de.fosd.jdime.stats.Statistics;
 
 /**
  * An {@link Operation} that adds a given {@link Artifact} to the children of another {@link Artifact}.
@@ -86,9 +85,8 @@ public class AddOperation<T extends Artifact<T>> extends Operation<T> {
             target.addChild(artifact);
         }
 
-        if (context.hasStatistics()) {
-            Statistics statistics = context.getStatistics();
-            MergeScenarioStatistics mScenarioStatistics = statistics.getCurrentFileMergeScenarioStatistics();
+        if (context.hasStatistics() && context.getCurrentScenario() != null) {
+            MergeScenarioStatistics mScenarioStatistics = context.getCurrentScenarioStatistics();
 
             artifact.addOpStatistics(mScenarioStatistics, context);
         }
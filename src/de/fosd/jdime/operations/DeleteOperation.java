@@ -29,7 +29,6 @@ import java.util.logging.Logger;
 import de.fosd.jdime.artifact.Artifact;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
-import de.fosd.jdime.stats.Statistics;
 
 /**
  * An {@link Operation} that deletes an {@link Artifact} from the children of another {@link Artifact}.
@@ -102,9 +101,8 @@ public class DeleteOperation<T extends Artifact<T>> extends Operation<T> {
             // which then calls clearChildren() on the created Program.
         }
 
-        if (context.hasStatistics()) {
-            Statistics statistics = context.getStatistics();
-            MergeScenarioStatistics mScenarioStatistics = statistics.getCurrentFileMergeScenarioStatistics();
+        if (context.hasStatistics() && context.getCurrentScenario() != null) {
+            MergeScenarioStatistics mScenarioStatistics = context.getCurrentScenarioStatistics();
 
             artifact.deleteOpStatistics(mScenarioStatistics, context);
         }
@@ -34,7 +34,6 @@ import de.fosd.jdime.config.merge.MergeScenario;
 import de.fosd.jdime.config.merge.MergeType;
 import de.fosd.jdime.execption.AbortException;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
-import de.fosd.jdime.stats.Statistics;
 
 import static de.fosd.jdime.config.merge.MergeScenario.BASE;
 import static de.fosd.jdime.stats.KeyEnums.Type.DIRECTORY;
@@ -165,9 +164,8 @@ public class MergeOperation<T extends Artifact<T>> extends Operation<T> {
         T artifact = mergeScenario.get(0);
         artifact.merge(this, context);
 
-        if (context.hasStatistics()) {
-            Statistics statistics = context.getStatistics();
-            MergeScenarioStatistics mScenarioStatistics = statistics.getCurrentFileMergeScenarioStatistics();
+        if (context.hasStatistics() && context.getCurrentScenario() != null) {
+            MergeScenarioStatistics mScenarioStatistics = context.getCurrentScenarioStatistics();
 
             boolean files = mergeScenario.getArtifacts().entrySet().stream()
                     .map(Map.Entry::getValue)
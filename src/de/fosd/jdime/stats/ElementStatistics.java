@@ -24,27 +24,29 @@
 package de.fosd.jdime.stats;
 
 import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * A container class for statistics counters.
+ * A container class for statistics counters. The counters may be incremented concurrently by multiple threads without
+ * contention, their values are summed up when they are read.
  */
 public class ElementStatistics {
 
-    private int total;
-    private int numAdded;
-    private int numMerged;
-    private int numDeleted;
-    private int numOccurInConflict;
+    private LongAdder total;
+    private LongAdder numAdded;
+    private LongAdder numMerged;
+    private LongAdder numDeleted;
+    private LongAdder numOccurInConflict;
 
     /**
      * Constructs a new <code>ElementStatistics</code> instance.
      */
     public ElementStatistics() {
-        this.total = 0;
-        this.numAdded = 0;
-        this.numMerged = 0;
-        this.numDeleted = 0;
-        this.numOccurInConflict = 0;
+        this.total = new LongAdder();
+        this.numAdded = new LongAdder();
+        this.numMerged = new LongAdder();
+        this.numDeleted = new LongAdder();
+        this.numOccurInConflict = new LongAdder();
     }
 
     /**
@@ -54,11 +56,8 @@ public class ElementStatistics {
      *         the <code>ElementStatistics</code> to copy
      */
     public ElementStatistics(ElementStatistics toCopy) {
-        this.total = toCopy.total;
-        this.numAdded = toCopy.numAdded;
-        this.numMerged = toCopy.numMerged;
-        this.numDeleted = toCopy.numDeleted;
-        this.numOccurInConflict = toCopy.numOccurInConflict;
+        this();
+        add(toCopy);
     }
 
     /**
@@ -67,7 +66,7 @@ public class ElementStatistics {
      * @param by the amount to add
      */
     public void incrementTotal(int by) {
-        total += by;
+        total.add(by);
     }
 
     /**
@@ -76,7 +75,7 @@ public class ElementStatistics {
      * @param by the amount to add
      */
     public void incrementNumAdded(int by) {
-        numAdded += by;
+        numAdded.add(by);
     }
 
     /**
@@ -85,7 +84,7 @@ public class ElementStatistics {
      * @param by the amount to add
      */
     public void incrementNumMerged(int by) {
-        numMerged += by;
+        numMerged.add(by);
     }
 
     /**
@@ -94,7 +93,7 @@ public class ElementStatistics {
      * @param by the amount to add
      */
     public void incrementNumDeleted(int by) {
-        numDeleted += by;
+        numDeleted.add(by);
     }
 
     /**
@@ -103,7 +102,7 @@ public class ElementStatistics {
      * @param by the amount to add
      */
     public void incrementNumOccurInConflict(int by) {
-        numOccurInConflict += by;
+        numOccurInConflict.add(by);
     }
 
     /**
@@ -147,7 +146,7 @@ public class ElementStatistics {
      * @return the total
      */
     public int getTotal() {
-        return total;
+        return total.intValue();
     }
 
     /**
@@ -157,7 +156,8 @@ public class ElementStatistics {
      *         the new total
      */
     public void setTotal(int total) {
-        this.total = total;
+        this.total.reset();
+        this.total.add(total);
     }
 
     /**
@@ -166,7 +166,7 @@ public class ElementStatistics {
      * @return the added counter
      */
     public int getNumAdded() {
-        return numAdded;
+        return numAdded.intValue();
     }
 
     /**
@@ -176,7 +176,8 @@ public class ElementStatistics {
      *         the new added counter
      */
     public void setNumAdded(int numAdded) {
-        this.numAdded = numAdded;
+        this.numAdded.reset();
+        this.numAdded.add(numAdded);
     }
 
     /**
@@ -185,7 +186,7 @@ public class ElementStatistics {
      * @return the merged counter
      */
     public int getNumMerged() {
-        return numMerged;
+        return numMerged.intValue();
     }
 
     /**
@@ -195,7 +196,8 @@ public class ElementStatistics {
      *         the new merged counter
      */
     public void setNumMerged(int numMerged) {
-        this.numMerged = numMerged;
+        this.numMerged.reset();
+        this.numMerged.add(numMerged);
     }
 
     /**
@@ -204,7 +206,7 @@ public class ElementStatistics {
      * @return the deleted counter
      */
     public int getNumDeleted() {
-        return numDeleted;
+        return numDeleted.intValue();
     }
 
     /**
@@ -214,7 +216,8 @@ public class ElementStatistics {
      *         the new deleted counter
      */
     public void setNumDeleted(int numDeleted) {
-        this.numDeleted = numDeleted;
+        this.numDeleted.reset();
+        this.numDeleted.add(numDeleted);
     }
 
     /**
@@ -223,7 +226,7 @@ public class ElementStatistics {
      * @return the occur in conflict counter
      */
     public int getNumOccurInConflict() {
-        return numOccurInConflict;
+        return numOccurInConflict.intValue();
     }
 
     /**
@@ -233,7 +236,8 @@ public class ElementStatistics {
      *         the new occur in conflict counter
      */
     public void setNumOccurInConflict(int numOccurInConflict) {
-        this.numOccurInConflict = numOccurInConflict;
+        this.numOccurInConflict.reset();
+        this.numOccurInConflict.add(numOccurInConflict);
     }
 
     /**
@@ -242,11 +246,11 @@ public class ElementStatistics {
      * @param other the <code>ElementStatistics</code> to add
      */
     public void add(ElementStatistics other) {
-        total += other.total;
-        numAdded += other.numAdded;
-        numMerged += other.numMerged;
-        numDeleted += other.numDeleted;
-        numOccurInConflict += other.numOccurInConflict;
+        total.add(other.getTotal());
+        numAdded.add(other.getNumAdded());
+        numMerged.add(other.getNumMerged());
+        numDeleted.add(other.getNumDeleted());
+        numOccurInConflict.add(other.getNumOccurInConflict());
     }
 
     /**
@@ -259,10 +263,10 @@ public class ElementStatistics {
      *         the indentation to use
      */
     public void print(PrintStream ps, String indent) {
-        ps.print(indent); ps.print("Total:      "); ps.println(total);
-        ps.print(indent); ps.print("Added:      "); ps.println(numAdded);
-        ps.print(indent); ps.print("Merged:     "); ps.println(numMerged);
-        ps.print(indent); ps.print("Deleted:    "); ps.println(numDeleted);
-        ps.print(indent); ps.print("InConflict: "); ps.println(numOccurInConflict);
+        ps.print(indent); ps.print("Total:      "); ps.println(getTotal());
+        ps.print(indent); ps.print("Added:      "); ps.println(getNumAdded());
+        ps.print(indent); ps.print("Merged:     "); ps.println(getNumMerged());
+        ps.print(indent); ps.print("Deleted:    "); ps.println(getNumDeleted());
+        ps.print(indent); ps.print("InConflict: "); ps.println(getNumOccurInConflict());
     }
 }
@@ -97,7 +97,7 @@ public class MergeScenarioStatistics {
         this.levelStatistics = new HashMap<>(toCopy.levelStatistics.size());
 
         for (Map.Entry<Revision, Map<KeyEnums.Level, ElementStatistics>> entry : toCopy.levelStatistics.entrySet()) {
-            Map<KeyEnums.Level, ElementStatistics> map = new HashMap<>();
+            Map<KeyEnums.Level, ElementStatistics> map = new EnumMap<>(KeyEnums.Level.class);
 
             for (Map.Entry<KeyEnums.Level, ElementStatistics> subEntry : entry.getValue().entrySet()) {
                 map.put(subEntry.getKey(), new ElementStatistics(subEntry.getValue()));
@@ -109,7 +109,7 @@ public class MergeScenarioStatistics {
         this.typeStatistics = new HashMap<>(toCopy.typeStatistics.size());
 
         for (Map.Entry<Revision, Map<KeyEnums.Type, ElementStatistics>> entry : toCopy.typeStatistics.entrySet()) {
-            Map<KeyEnums.Type, ElementStatistics> map = new HashMap<>();
+            Map<KeyEnums.Type, ElementStatistics> map = new EnumMap<>(KeyEnums.Type.class);
 
             for (Map.Entry<KeyEnums.Type, ElementStatistics> subEntry : entry.getValue().entrySet()) {
                 map.put(subEntry.getKey(), new ElementStatistics(subEntry.getValue()));
@@ -171,7 +171,7 @@ public class MergeScenarioStatistics {
      * @param matching
      *         the <code>Matching</code> to add
      */
-    public void addMatching(Matching<?> matching) {
+    public synchronized void addMatching(Matching<?> matching) {
         matchings.add(matching);
     }
 
@@ -181,7 +181,7 @@ public class MergeScenarioStatistics {
      * @param matchings
      *         the <code>Matching</code>s to add
      */
-    public void addAllMatchings(Collection<? extends Matching<?>> matchings) {
+    public synchronized void addAllMatchings(Collection<? extends Matching<?>> matchings) {
         this.matchings.addAll(matchings);
     }
 
@@ -219,8 +219,10 @@ public class MergeScenarioStatistics {
      *         the <code>LEVEL</code> in the <code>Revision</code>
      * @return the corresponding <code>ElementStatistics</code>
      */
-    public ElementStatistics getLevelStatistics(Revision rev, KeyEnums.Level level) {
-        return levelStatistics.computeIfAbsent(rev, r -> new HashMap<>()).computeIfAbsent(level, l -> new ElementStatistics());
+    public synchronized ElementStatistics getLevelStatistics(Revision rev, KeyEnums.Level level) {
+        Map<KeyEnums.Level, ElementStatistics> map =
+                levelStatistics.computeIfAbsent(rev, r -> new EnumMap<>(KeyEnums.Level.class));
+        return map.computeIfAbsent(level, l -> new ElementStatistics());
     }
 
     /**
@@ -259,7 +261,7 @@ public class MergeScenarioStatistics {
      *         the <code>TYPE</code> in the <code>Revision</code>
      * @return the corresponding <code>ElementStatistics</code>
      */
-    public ElementStatistics getTypeStatistics(Revision rev, KeyEnums.Type type) {
+    public synchronized ElementStatistics getTypeStatistics(Revision rev, KeyEnums.Type type) {
 
         switch (type) {
 
@@ -271,7 +273,9 @@ public class MergeScenarioStatistics {
                 return directoryStatistics;
         }
 
-        return typeStatistics.computeIfAbsent(rev, r -> new HashMap<>()).computeIfAbsent(type, l -> new ElementStatistics());
+        Map<KeyEnums.Type, ElementStatistics> map =
+                typeStatistics.computeIfAbsent(rev, r -> new EnumMap<>(KeyEnums.Type.class));
+        return map.computeIfAbsent(type, l -> new ElementStatistics());
     }
 
     /**
@@ -293,7 +297,7 @@ public class MergeScenarioStatistics {
      *         the <code>Revision</code> to get the <code>MergeStatistics</code> for
      * @return the corresponding <code>MergeStatistics</code>
      */
-    public MergeStatistics getMergeStatistics(Revision rev) {
+    public synchronized MergeStatistics getMergeStatistics(Revision rev) {
         return mergeStatistics.computeIfAbsent(rev, r -> new MergeStatistics());
     }
 
@@ -407,7 +411,7 @@ public class MergeScenarioStatistics {
      * @param runtime
      *         the {@link Runtime} to store in this {@link MergeScenarioStatistics}
      */
-    public void putRuntime(Runtime runtime) {
+    public synchronized void putRuntime(Runtime runtime) {
         runtimes.put(runtime.getLabel(), runtime);
     }
 
@@ -35,6 +35,12 @@ public enum MergeScenarioStatus {
      */
     OK,
 
+    /**
+     * Indicates that the merge was resolved without merging the artifacts because two of the three revisions were
+     * identical.
+     */
+    TRIVIAL,
+
     /**
      * Indicates that there was an exception while executing the {@link MergeScenario}.
      */
@@ -31,11 +31,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.Field;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.IntSummaryStatistics;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -44,12 +46,12 @@ import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.converters.Converter;
 import com.thoughtworks.xstream.converters.MarshallingContext;
 import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.converters.basic.AbstractSingleValueConverter;
 import com.thoughtworks.xstream.converters.collections.CollectionConverter;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import com.thoughtworks.xstream.mapper.ImplicitCollectionMapper;
 import de.fosd.jdime.artifact.Artifact;
-import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.config.merge.MergeScenario;
 import de.fosd.jdime.config.merge.Revision;
@@ -64,14 +66,13 @@ public class Statistics {
 
     private static final Logger LOG = Logger.getLogger(Statistics.class.getCanonicalName());
 
-    private MergeScenario<FileArtifact> currentFileMergeScenario;
     private Map<MergeScenario<?>, MergeScenarioStatistics> scenarioStatistics;
 
     /**
      * Constructs a new <code>Statistics</code> object.
      */
     public Statistics() {
-        this.scenarioStatistics = new HashMap<>();
+        this.scenarioStatistics = new LinkedHashMap<>();
     }
 
     /**
@@ -81,38 +82,13 @@ public class Statistics {
      *         the <code>Statistics</code> to copy
      */
     public Statistics(Statistics toCopy) {
+        this.scenarioStatistics = new LinkedHashMap<>();
 
-        if (toCopy.currentFileMergeScenario != null) {
-            this.currentFileMergeScenario = new MergeScenario<>(toCopy.currentFileMergeScenario);
+        synchronized (toCopy) {
+            toCopy.scenarioStatistics.forEach((scenario, stats) ->
+                    this.scenarioStatistics.put(new MergeScenario<>(scenario), new MergeScenarioStatistics(stats))
+            );
         }
-
-        this.scenarioStatistics = new HashMap<>();
-
-        for (Map.Entry<MergeScenario<?>, MergeScenarioStatistics> entry : toCopy.scenarioStatistics.entrySet()) {
-            MergeScenario<?> mScenario = new MergeScenario<>(entry.getKey());
-            MergeScenarioStatistics mStats = new MergeScenarioStatistics(entry.getValue());
-
-            this.scenarioStatistics.put(mScenario, mStats);
-        }
-    }
-
-    /**
-     * Gets the <code>MergeScenarioStatistics</code> for the current <code>FileArtifact</code>
-     * <code>MergeScenario</code>.
-     *
-     * @return the <code>MergeScenarioStatistics</code>
-     */
-    public MergeScenarioStatistics getCurrentFileMergeScenarioStatistics() {
-        return getScenarioStatistics(currentFileMergeScenario);
-    }
-
-    /**
-     * Sets the currently active <code>MergeScenario</code> for <code>FileArtifacts</code> to the new value.
-     *
-     * @param currentFileMergeScenario the new <code>MergeScenario</code> for <code>FileArtifacts</code>
-     */
-    public void setCurrentFileMergeScenario(MergeScenario<FileArtifact> currentFileMergeScenario) {
-        this.currentFileMergeScenario = currentFileMergeScenario;
     }
 
     /**
@@ -123,7 +99,7 @@ public class Statistics {
      *         the <code>MergeScenario</code> to check for
      * @return true iff a <code>MergeScenarioStatistics</code> was registered for <code>mergeScenario</code>
      */
-    public boolean containsStatistics(MergeScenario<?> mergeScenario) {
+    public synchronized boolean containsStatistics(MergeScenario<?> mergeScenario) {
         return scenarioStatistics.containsKey(mergeScenario);
     }
 
@@ -135,7 +111,7 @@ public class Statistics {
      *         the <code>MergeScenario</code> to get the <code>MergeScenarioStatistics</code> for
      * @return the <code>MergeScenarioStatistics</code> for the given <code>MergeScenario</code>
      */
-    public MergeScenarioStatistics getScenarioStatistics(MergeScenario<?> mergeScenario) {
+    public synchronized MergeScenarioStatistics getScenarioStatistics(MergeScenario<?> mergeScenario) {
         return scenarioStatistics.computeIfAbsent(mergeScenario, MergeScenarioStatistics::new);
     }
 
@@ -144,7 +120,7 @@ public class Statistics {
      *
      * @return the <code>MergeScenarioStatistics</code>
      */
-    public List<MergeScenarioStatistics> getScenarioStatistics() {
+    public synchronized List<MergeScenarioStatistics> getScenarioStatistics() {
         return scenarioStatistics.values().stream().collect(Collectors.toList());
     }
 
@@ -156,7 +132,7 @@ public class Statistics {
      * @param statistics
      *         the <code>MergeScenarioStatistics</code> to be added
      */
-    public void addScenarioStatistics(MergeScenarioStatistics statistics) {
+    public synchronized void addScenarioStatistics(MergeScenarioStatistics statistics) {
         scenarioStatistics.merge(statistics.getMergeScenario(), statistics, (o, n) -> {o.add(n); return o;});
     }
 
@@ -166,7 +142,7 @@ public class Statistics {
      *
      * @param scenario the <code>MergeScenario</code> whose <code>MergeScenarioStatistics</code> are to be removed.
      */
-    public void removeScenarioStatistics(MergeScenario<?> scenario) {
+    public synchronized void removeScenarioStatistics(MergeScenario<?> scenario) {
         scenarioStatistics.remove(scenario);
     }
 
@@ -176,7 +152,7 @@ public class Statistics {
      *
      * @return the <code>IntSummaryStatistics</code> about conflicts that occurred
      */
-    public IntSummaryStatistics getConflictStatistics() {
+    public synchronized IntSummaryStatistics getConflictStatistics() {
         return scenarioStatistics.values().stream().collect(Collectors.summarizingInt(MergeScenarioStatistics::getConflicts));
     }
 
@@ -185,7 +161,7 @@ public class Statistics {
      *
      * @return true iff any added <code>MergeScenarioStatistics</code> recorded conflicts
      */
-    public boolean hasConflicts() {
+    public synchronized boolean hasConflicts() {
         return scenarioStatistics.values().stream().anyMatch(s -> s.getConflicts() > 0);
     }
 
@@ -199,7 +175,13 @@ public class Statistics {
      * @see MergeScenarioStatistics#add(MergeScenarioStatistics)
      */
     public void add(Statistics other) {
-        for (Map.Entry<MergeScenario<?>, MergeScenarioStatistics> entry : other.scenarioStatistics.entrySet()) {
+        List<Map.Entry<MergeScenario<?>, MergeScenarioStatistics>> entries;
+
+        synchronized (other) {
+            entries = new ArrayList<>(other.scenarioStatistics.entrySet());
+        }
+
+        for (Map.Entry<MergeScenario<?>, MergeScenarioStatistics> entry : entries) {
             getScenarioStatistics(entry.getKey()).add(entry.getValue());
         }
     }
@@ -234,7 +216,7 @@ public class Statistics {
      * @param os
      *         the <code>OutputStream</code> to write to
      */
-    public void printXML(OutputStream os, MergeContext context) {
+    public synchronized void printXML(OutputStream os, MergeContext context) {
         buildSerializer(context).toXML(this, os);
     }
 
@@ -336,7 +318,6 @@ public class Statistics {
         serializer.useAttributeFor(Revision.class, "name");
 
         serializer.alias(Statistics.class.getSimpleName().toLowerCase(), Statistics.class);
-        serializer.omitField(Statistics.class, "currentFileMergeScenario");
         serializer.addImplicitMap(Statistics.class, "scenarioStatistics", MergeScenarioStatistics.class, "mergeScenario");
 
         serializer.alias(KeyEnums.Type.class.getSimpleName().toLowerCase(), KeyEnums.Type.class);
@@ -351,6 +332,22 @@ public class Statistics {
         }
         serializer.alias(ElementStatistics.class.getSimpleName().toLowerCase(), ElementStatistics.class);
 
+        serializer.registerConverter(new AbstractSingleValueConverter() {
+
+            @Override
+            public Object fromString(String str) {
+                LongAdder adder = new LongAdder();
+                adder.add(Long.parseLong(str));
+
+                return adder;
+            }
+
+            @Override
+            public boolean canConvert(@SuppressWarnings("rawtypes") Class type) {
+                return type.equals(LongAdder.class);
+            }
+        });
+
         for (Field field : MergeStatistics.class.getDeclaredFields()) {
             serializer.useAttributeFor(MergeStatistics.class, field.getName());
         }
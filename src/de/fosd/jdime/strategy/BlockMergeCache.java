@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.strategy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.fosd.jdime.util.parser.Content;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * A least recently used cache of the results of the line based merges of blocks in semistructured merges. The cache
+ * is keyed by hashes of the contents of the left, base and right blocks and shared by all merges of a run. Only
+ * results without conflicts are cached since the conflict markers contain the names of the merged files.
+ * <p>
+ * The cache is bounded by the total length of the merged blocks it contains (see {@link #setMaxSize(int)}).
+ */
+public final class BlockMergeCache {
+
+    /**
+     * The default value for {@link #maxSize}.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1 << 20;
+
+    /**
+     * The cached merge results in access order.
+     */
+    private static final Map<String, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The maximum total length of the cached merge results.
+     */
+    private static int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * The current total length of the cached merge results.
+     */
+    private static long size = 0;
+
+    /**
+     * Utility class.
+     */
+    private BlockMergeCache() {}
+
+    /**
+     * Sets the maximum total length (in characters) of the cached merge results. A value of zero (or less) disables
+     * the cache. Cached results are evicted as necessary.
+     *
+     * @param maxSize
+     *         the new maximum size
+     */
+    public static synchronized void setMaxSize(int maxSize) {
+        BlockMergeCache.maxSize = maxSize;
+        evict();
+    }
+
+    /**
+     * Removes all cached merge results.
+     */
+    public static synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the key for the merge of the given blocks.
+     *
+     * @param left
+     *         the content of the left block
+     * @param base
+     *         the content of the base block
+     * @param right
+     *         the content of the right block
+     * @return the key
+     */
+    static String key(String left, String base, String right) {
+        return DigestUtils.sha256Hex(left) + DigestUtils.sha256Hex(base) + DigestUtils.sha256Hex(right);
+    }
+
+    /**
+     * Returns the cached result of the merge with the given <code>key</code>.
+     *
+     * @param key
+     *         the key as returned by {@link #key(String, String, String)}
+     * @return the merged content or <code>null</code> if it is not cached
+     */
+    static synchronized String get(String key) {
+        return maxSize > 0 ? entries.get(key) : null;
+    }
+
+    /**
+     * Caches the result of the merge with the given <code>key</code> unless it contains conflicts or is larger than
+     * the cache.
+     *
+     * @param key
+     *         the key as returned by {@link #key(String, String, String)}
+     * @param merged
+     *         the merged content
+     */
+    static synchronized void put(String key, String merged) {
+
+        if (maxSize <= 0 || merged.length() > maxSize || merged.contains(Content.Conflict.CONFLICT_START)) {
+            return;
+        }
+
+        String old = entries.put(key, merged);
+
+        if (old != null) {
+            size -= old.length();
+        }
+
+        size += merged.length();
+        evict();
+    }
+
+    /**
+     * Removes the least recently used merge results until the {@link #size} of the cache is at most {@link #maxSize}.
+     */
+    private static void evict() {
+        Iterator<String> it = entries.values().iterator();
+
+        while (size > Math.max(maxSize, 0) && it.hasNext()) {
+            size -= it.next().length();
+            it.remove();
+        }
+    }
+}
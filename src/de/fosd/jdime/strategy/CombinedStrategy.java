@@ -26,11 +26,17 @@ package de.fosd.jdime.strategy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Logger;
 
 import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.execption.AbortException;
 import de.fosd.jdime.operations.MergeOperation;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
 import de.fosd.jdime.stats.Runtime;
@@ -48,6 +54,23 @@ public class CombinedStrategy extends MergeStrategy<FileArtifact> {
 
     private static final Logger LOG = Logger.getLogger(CombinedStrategy.class.getCanonicalName());
 
+    /**
+     * The threads applying the strategies of speculative merges (see {@link MergeContext#isSpeculative()}). Shared by
+     * all <code>CombinedStrategy</code>s so that the number of concurrent merges stays bounded by the number of
+     * processors no matter how many files are merged at once.
+     */
+    private static final ExecutorService SPECULATION;
+
+    static {
+        int threads = java.lang.Runtime.getRuntime().availableProcessors();
+
+        SPECULATION = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "JDime Speculative Merge");
+            thread.setDaemon(true); // cancelled merges may still be running when JDime exits
+            return thread;
+        });
+    }
+
     private List<MergeStrategy<FileArtifact>> strategies;
 
     /**
@@ -61,11 +84,14 @@ public class CombinedStrategy extends MergeStrategy<FileArtifact> {
     }
 
     /**
-     * TODO: high-level documentation
+     * Merges the files of the given <code>MergeOperation</code> using the combined strategies in order until one of
+     * them produces no conflicts. If {@link MergeContext#isSpeculative()} is set, all strategies are run concurrently
+     * instead and the result of the first conflict free strategy (in order) is used.
+     *
      * @param operation the <code>MergeOperation</code> to perform
      * @param context the <code>MergeContext</code>
      */
-    @Override @SuppressWarnings("try")
+    @Override
     public void merge(MergeOperation<FileArtifact> operation, MergeContext context) {
         LOG.fine(() -> {
             MergeScenario<FileArtifact> triple = operation.getMergeScenario();
@@ -76,57 +102,219 @@ public class CombinedStrategy extends MergeStrategy<FileArtifact> {
             return String.format("Merging:%nLeft: %s%nBase: %s%nRight: %s", leftPath, basePath, rightPath);
         });
 
-        MergeContext subContext = null;
-
-        Runtime runtime;
         List<Runtime> runtimes = new ArrayList<>();
-
-        runtime = new Runtime(MERGE_LABEL);
+        Runtime runtime = new Runtime(MERGE_LABEL);
         runtimes.add(runtime);
 
         Runtime.Measurement mergeMeasurement = runtime.time();
+        MergeContext subContext;
 
-        for (MergeStrategy<FileArtifact> strategy : strategies) {
-            subContext = new MergeContext(context);
+        if (context.isSpeculative() && strategies.size() > 1) {
+            subContext = mergeSpeculatively(operation, context, runtimes);
+        } else {
+            subContext = mergeSequentially(operation, context, runtimes);
+        }
+
+        long mergeTime = mergeMeasurement.stop();
+        LOG.fine(() -> String.format("Combined merge time was %d ms.", mergeTime));
+
+        if (subContext != null && context.hasStatistics()) {
+            Statistics statistics = context.getStatistics();
+            Statistics subStatistics = subContext.getStatistics();
+            MergeScenarioStatistics scenarioStats = subStatistics.getScenarioStatistics(operation.getMergeScenario());
+
+            runtimes.forEach(scenarioStats::putRuntime);
 
-            subContext.setMergeStrategy(strategy);
+            statistics.addScenarioStatistics(scenarioStats);
+        }
+    }
 
-            subContext.collectStatistics(true);
-            subContext.getStatistics().removeScenarioStatistics(operation.getMergeScenario());
+    /**
+     * Applies the strategies one after another until one of them produces no conflicts.
+     *
+     * @param operation
+     *         the <code>MergeOperation</code> to perform
+     * @param context
+     *         the <code>MergeContext</code>
+     * @param runtimes
+     *         the list to add the <code>Runtime</code>s of the strategies to
+     * @return the <code>MergeContext</code> used for the last strategy that was applied
+     */
+    @SuppressWarnings("try")
+    private MergeContext mergeSequentially(MergeOperation<FileArtifact> operation, MergeContext context,
+                                           List<Runtime> runtimes) {
+        MergeContext subContext = null;
 
-            runtime = new Runtime(strategy.toString());
+        for (MergeStrategy<FileArtifact> strategy : strategies) {
+            subContext = subContext(strategy, context, false);
+
+            Runtime runtime = new Runtime(strategy.toString());
             runtimes.add(runtime);
 
             try (Runtime.Measurement m = runtime.time()) {
                 strategy.merge(operation, subContext);
             }
 
-            Statistics stats = subContext.getStatistics();
+            if (!hasConflicts(strategy, subContext)) {
+                break;
+            }
+        }
+
+        return subContext;
+    }
 
-            if (stats.hasConflicts()) {
-                long conflicts = subContext.getStatistics().getConflictStatistics().getSum();
+    /**
+     * Applies all strategies concurrently, each one merging into its own copy of the target. The first strategy is
+     * applied in the current thread, the others are started on the threads shared by all speculative merges (see
+     * {@link #SPECULATION}). The result of the first strategy (in order) that produces no conflicts (or of the last
+     * strategy) is then stored in the target of the <code>operation</code> and the merges of the remaining strategies
+     * are cancelled (see {@link MergeContext#cancel()}). Strategies that were not started by the time their result is
+     * needed are applied in the current thread. Exceptions of strategies are only rethrown if all strategies before
+     * them produced conflicts, just like in {@link #mergeSequentially(MergeOperation, MergeContext, List)}.
+     *
+     * @param operation
+     *         the <code>MergeOperation</code> to perform
+     * @param context
+     *         the <code>MergeContext</code>
+     * @param runtimes
+     *         the list to add the <code>Runtime</code>s of the strategies to
+     * @return the <code>MergeContext</code> used for the strategy whose result was used
+     */
+    @SuppressWarnings("try")
+    private MergeContext mergeSpeculatively(MergeOperation<FileArtifact> operation, MergeContext context,
+                                            List<Runtime> runtimes) {
+        MergeScenario<FileArtifact> scenario = operation.getMergeScenario();
 
-                LOG.fine(() -> {
-                    String noun = conflicts > 1 ? "conflicts" : "conflict";
-                    return String.format("%s produced %d %s.", strategy, conflicts, noun);
-                });
-            } else {
-                LOG.fine(() -> strategy + " produced no conflicts.");
-                break;
+        // Read the input files once instead of concurrently in every strategy.
+        scenario.getArtifacts().values().forEach(FileArtifact::getContent);
+
+        List<FutureTask<MergeContext>> merges = new ArrayList<>();
+        List<MergeContext> subContexts = new ArrayList<>();
+        List<FileArtifact> targets = new ArrayList<>();
+        List<Runtime> strategyRuntimes = new ArrayList<>();
+
+        for (MergeStrategy<FileArtifact> strategy : strategies) {
+            MergeContext subContext = subContext(strategy, context, true);
+            FileArtifact target = operation.getTarget().copy();
+            MergeOperation<FileArtifact> subOperation = new MergeOperation<>(scenario, target);
+            Runtime runtime = new Runtime(strategy.toString());
+
+            subContexts.add(subContext);
+            targets.add(target);
+            strategyRuntimes.add(runtime);
+            merges.add(new FutureTask<>(() -> {
+
+                try (Runtime.Measurement m = runtime.time()) {
+                    strategy.merge(subOperation, subContext);
+                }
+
+                return subContext;
+            }));
+        }
+
+        try {
+            merges.subList(1, merges.size()).forEach(SPECULATION::execute);
+
+            for (int i = 0; i < strategies.size(); i++) {
+                MergeStrategy<FileArtifact> strategy = strategies.get(i);
+                FutureTask<MergeContext> merge = merges.get(i);
+
+                merge.run(); // does nothing if the merge was already started by another thread
+
+                MergeContext subContext = await(merge);
+
+                runtimes.add(strategyRuntimes.get(i));
+
+                if (!hasConflicts(strategy, subContext) || i == strategies.size() - 1) {
+
+                    if (!context.isDiffOnly()) {
+                        operation.getTarget().setContent(targets.get(i).getContent());
+                    }
+
+                    return subContext;
+                }
             }
+
+            throw new IllegalStateException("No strategy was applied.");
+        } finally {
+            merges.forEach(m -> m.cancel(false));
+            subContexts.forEach(MergeContext::cancel);
         }
+    }
 
-        long mergeTime = mergeMeasurement.stop();
-        LOG.fine(() -> String.format("Combined merge time was %d ms.", mergeTime));
+    /**
+     * Returns a fork of the given <code>context</code> for applying the given <code>strategy</code>.
+     *
+     * @param strategy
+     *         the <code>MergeStrategy</code> to use
+     * @param context
+     *         the <code>MergeContext</code> to fork
+     * @param cancellable
+     *         whether the merge using the fork must be cancellable independently of <code>context</code>
+     * @return the forked <code>MergeContext</code>
+     */
+    private static MergeContext subContext(MergeStrategy<FileArtifact> strategy, MergeContext context,
+                                           boolean cancellable) {
+        MergeContext subContext = cancellable ? context.forkCancellable() : context.fork();
 
-        if (subContext != null && context.hasStatistics()) {
-            Statistics statistics = context.getStatistics();
-            Statistics subStatistics = subContext.getStatistics();
-            MergeScenarioStatistics scenarioStats = subStatistics.getScenarioStatistics(operation.getMergeScenario());
+        subContext.setMergeStrategy(strategy);
+        subContext.collectStatistics(true);
 
-            runtimes.forEach(scenarioStats::putRuntime);
+        return subContext;
+    }
 
-            statistics.addScenarioStatistics(scenarioStats);
+    /**
+     * Returns whether the merge using the given <code>strategy</code> produced conflicts.
+     *
+     * @param strategy
+     *         the <code>MergeStrategy</code> that was applied
+     * @param subContext
+     *         the <code>MergeContext</code> the <code>strategy</code> was applied with
+     * @return true iff conflicts were produced
+     */
+    private static boolean hasConflicts(MergeStrategy<FileArtifact> strategy, MergeContext subContext) {
+        Statistics stats = subContext.getStatistics();
+
+        if (stats.hasConflicts()) {
+            long conflicts = stats.getConflictStatistics().getSum();
+
+            LOG.fine(() -> {
+                String noun = conflicts > 1 ? "conflicts" : "conflict";
+                return String.format("%s produced %d %s.", strategy, conflicts, noun);
+            });
+
+            return true;
+        } else {
+            LOG.fine(() -> strategy + " produced no conflicts.");
+            return false;
+        }
+    }
+
+    /**
+     * Waits for the given merge to finish and returns its <code>MergeContext</code>. Exceptions thrown by the merge
+     * are rethrown.
+     *
+     * @param result
+     *         the result of the merge
+     * @return the <code>MergeContext</code> the merge was performed with
+     */
+    private static MergeContext await(Future<MergeContext> result) {
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AbortException("Interrupted while merging speculatively.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
         }
     }
 }
@@ -26,6 +26,7 @@ package de.fosd.jdime.strategy;
 import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.merge.Diff3;
 import de.fosd.jdime.operations.MergeOperation;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
 import de.fosd.jdime.stats.Runtime;
@@ -36,6 +37,7 @@ import de.uni_passau.fim.seibt.GitMergeFileOptions;
 import de.uni_passau.fim.seibt.GitMergeFileResult;
 import de.uni_passau.fim.seibt.LibGit2;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static de.fosd.jdime.stats.Runtime.MERGE_LABEL;
@@ -44,7 +46,8 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 /**
  * Performs an unstructured, line based merge.
  * <p>
- * The current implementation uses the merge routine provided by <code>git</code>.
+ * The current implementation uses the merge routine provided by <code>git</code> (through libgit2) or, if libgit2 is
+ * not available or {@link MergeContext#isJavaDiff3()} is set, the equivalent {@link Diff3} implemented in Java.
  *
  * @author Olaf Lessenich
  */
@@ -52,11 +55,33 @@ public class LinebasedStrategy extends MergeStrategy<FileArtifact> {
 
     private static final Logger LOG = Logger.getLogger(LinebasedStrategy.class.getCanonicalName());
 
+    /**
+     * Whether the native libgit2 library could not be loaded. If so, all line based merges use {@link Diff3}.
+     */
+    private static volatile boolean nativeUnavailable = false;
+
+    /**
+     * The options for the native merges of every thread. Only the labels differ between merges, so the options are
+     * reused instead of being allocated for every merge.
+     */
+    private static final ThreadLocal<GitMergeFileOptions> options = ThreadLocal.withInitial(GitMergeFileOptions::new);
+
     /**
      * Constructs a new {@link LinebasedStrategy}.
      */
     public LinebasedStrategy() {
-        LOG.fine("Constructing a " + getClass().getSimpleName() + " using libgit2 " + LibGit2.git_libgit2_version());
+
+        if (LOG.isLoggable(Level.FINE)) {
+            String version;
+
+            try {
+                version = "libgit2 " + LibGit2.git_libgit2_version();
+            } catch (LinkageError e) {
+                version = Diff3.class.getSimpleName();
+            }
+
+            LOG.fine("Constructing a " + getClass().getSimpleName() + " using " + version);
+        }
     }
 
     /**
@@ -81,11 +106,13 @@ public class LinebasedStrategy extends MergeStrategy<FileArtifact> {
      */
     @Override @SuppressWarnings("try")
     public void merge(MergeOperation<FileArtifact> operation, MergeContext context) {
+        context.checkCancelled();
+
         Runtime merge = new Runtime(MERGE_LABEL);
         String mergeResult;
 
         try (Runtime.Measurement m = merge.time()) {
-            mergeResult = mergeFiles(operation);
+            mergeResult = mergeFiles(operation, context);
         }
 
         LOG.fine(() -> String.format("%s merge time was %d ms.", getClass().getSimpleName(), merge.getTimeMS()));
@@ -115,30 +142,76 @@ public class LinebasedStrategy extends MergeStrategy<FileArtifact> {
      *
      * @param op
      *         the current {@link MergeOperation}
+     * @param context
+     *         the current {@link MergeContext}
      * @return the merged file contents
      */
-    private String mergeFiles(MergeOperation<FileArtifact> op) {
+    private String mergeFiles(MergeOperation<FileArtifact> op, MergeContext context) {
         FileArtifact leftFile = op.getMergeScenario().getLeft();
         FileArtifact baseFile = op.getMergeScenario().getBase();
         FileArtifact rightFile = op.getMergeScenario().getRight();
 
+        String left = leftFile.getContent();
+        String base = baseFile.getContent();
+        String right = rightFile.getContent();
+
+        // The result is known if two of the revisions are identical, there is no need to transcode the contents.
+        if (left.equals(right) || base.equals(right)) {
+            return left;
+        } else if (base.equals(left)) {
+            return right;
+        }
+
         String leftL = leftFile.getFile().getPath();
         String baseL = baseFile.getFile().getPath();
         String rightL = rightFile.getFile().getPath();
 
-        GitMergeFileOptions opts = new GitMergeFileOptions();
+        if (!context.isJavaDiff3() && !nativeUnavailable) {
+
+            try {
+                return mergeNative(left, base, right, leftL, baseL, rightL);
+            } catch (LinkageError e) {
+                nativeUnavailable = true;
+                LOG.log(Level.WARNING, e, () -> "Could not load libgit2, using " + Diff3.class.getSimpleName() +
+                        " for all line based merges.");
+            }
+        }
+
+        return Diff3.merge(left, base, right, leftL, rightL);
+    }
+
+    /**
+     * Merges the given contents using libgit2.
+     *
+     * @param leftContent
+     *         the content of the left file
+     * @param baseContent
+     *         the content of the base file
+     * @param rightContent
+     *         the content of the right file
+     * @param leftL
+     *         the label of the left file
+     * @param baseL
+     *         the label of the base file
+     * @param rightL
+     *         the label of the right file
+     * @return the merged file contents
+     */
+    private String mergeNative(String leftContent, String baseContent, String rightContent,
+                               String leftL, String baseL, String rightL) {
+        GitMergeFileOptions opts = options.get();
         GitMergeFileResult res = new GitMergeFileResult();
 
         GitMergeFileInput left = new GitMergeFileInput();
-        left.setContent(leftFile.getContent(), UTF_8);
+        left.setContent(leftContent, UTF_8);
         opts.our_label = leftL;
 
         GitMergeFileInput base = new GitMergeFileInput();
-        base.setContent(baseFile.getContent(), UTF_8);
+        base.setContent(baseContent, UTF_8);
         opts.ancestor_label = baseL;
 
         GitMergeFileInput right = new GitMergeFileInput();
-        right.setContent(rightFile.getContent(), UTF_8);
+        right.setContent(rightContent, UTF_8);
         opts.their_label = rightL;
 
         LibGit2.git_merge_file(res, base, left, right, opts);
@@ -25,9 +25,11 @@ package de.fosd.jdime.strategy;
 
 import java.io.FileWriter;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import de.fosd.jdime.artifact.ast.ASTNodeArtifact;
 import de.fosd.jdime.artifact.file.FileArtifact;
@@ -82,12 +84,16 @@ public class NWayStrategy extends MergeStrategy<FileArtifact> {
             }
         }
 
-        Iterator<Revision> it = variants.keySet().iterator();
-        targetNode = new ASTNodeArtifact(variants.get(it.next()));
+        // The variants are parsed concurrently.
+        List<ASTNodeArtifact> trees = variants.values().parallelStream().map(ASTNodeArtifact::new)
+                                              .collect(Collectors.toList());
+
+        Iterator<ASTNodeArtifact> it = trees.iterator();
+        targetNode = it.next();
 
         while (it.hasNext()) {
             merged = targetNode;
-            next = new ASTNodeArtifact(variants.get(it.next()));
+            next = it.next();
 
             try {
                 long cmdStart = System.currentTimeMillis();
@@ -25,17 +25,21 @@ package de.fosd.jdime.strategy;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import de.fosd.jdime.artifact.ast.ASTNodeArtifact;
 import de.fosd.jdime.artifact.ast.SemiStructuredArtifact;
 import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.config.merge.MergeScenario;
 import de.fosd.jdime.operations.MergeOperation;
 import de.fosd.jdime.stats.KeyEnums;
+import de.fosd.jdime.util.LineIndex;
 
 import static de.fosd.jdime.stats.KeyEnums.Type.BLOCK;
 
@@ -43,10 +47,7 @@ public class SemiStructuredStrategy extends StructuredStrategy {
 
     private static final Logger LOG = Logger.getLogger(SemiStructuredStrategy.class.getCanonicalName());
 
-    /**
-     * Regex used to split a String into lines while retaining the original line separators.
-     */
-    private static Pattern LINES = Pattern.compile("(?<=\\R)");
+    private static final LinebasedStrategy linebased = new LinebasedStrategy();
 
     @Override
     public void merge(MergeOperation<FileArtifact> operation, MergeContext context) {
@@ -57,9 +58,10 @@ public class SemiStructuredStrategy extends StructuredStrategy {
         context.setSemiStructured(oldSemiStructured);
     }
 
-    static ASTNodeArtifact makeSemiStructured(ASTNodeArtifact root, KeyEnums.Level level, FileArtifact original) {
+    static ASTNodeArtifact makeSemiStructured(ASTNodeArtifact root, KeyEnums.Level level, FileArtifact original,
+                                              String content) {
         List<ASTNodeArtifact> toReplace = collectBlocks(root, level, new ArrayList<>());
-        String[] lines = LINES.split(original.getContent());
+        LineIndex lines = new LineIndex(content);
 
         for (ASTNodeArtifact artifact : toReplace) {
 
@@ -67,7 +69,7 @@ public class SemiStructuredStrategy extends StructuredStrategy {
 
             try {
                 // The SemiStructuredArtifact constructor inserts the new SemiStructuredArtifact into the tree.
-                replacement = new SemiStructuredArtifact(artifact, lines);
+                replacement = new SemiStructuredArtifact(artifact, original, lines);
             } catch (SemiStructuredArtifact.NotReplaceableException e) {
                 LOG.log(Level.FINE, e, () -> {
                     Optional<ASTNodeArtifact> enclosing = artifact.enclosingClassOrMethod();
@@ -90,6 +92,113 @@ public class SemiStructuredStrategy extends StructuredStrategy {
         return root;
     }
 
+    /**
+     * Decides whether the blocks on the {@link MergeContext#getSemiStructuredLevel() semistructured level} of the
+     * given revisions of a file are to be merged line based (see
+     * {@link #makeSemiStructured(ASTNodeArtifact, KeyEnums.Level, FileArtifact, String)}) in an adaptive
+     * semistructured merge. Large files (more than {@link MergeContext#getAdaptiveMaxNodes()} AST nodes in any
+     * revision) are always merged semistructured to bound the cost of matching them. Smaller files are merged fully
+     * structured if at least {@link MergeContext#getAdaptiveMinChange()} of the blocks of the left and right revisions
+     * do not occur unchanged in the base revision.
+     *
+     * @param left
+     *         the left revision
+     * @param base
+     *         the base revision
+     * @param right
+     *         the right revision
+     * @param context
+     *         the <code>MergeContext</code>
+     * @return true iff the blocks should be merged line based
+     */
+    static boolean collapseBlocks(ASTNodeArtifact left, ASTNodeArtifact base, ASTNodeArtifact right,
+                                  MergeContext context) {
+
+        int nodes = Stream.of(left, base, right).mapToInt(ASTNodeArtifact::getTreeSize).max().orElse(0);
+
+        if (nodes > context.getAdaptiveMaxNodes()) {
+            LOG.fine(() -> String.format("Merging the blocks of a file with %d nodes line based.", nodes));
+            return true;
+        }
+
+        KeyEnums.Level level = context.getSemiStructuredLevel();
+        Map<String, Long> baseBlocks = collectBlocks(base, level, new ArrayList<>()).stream()
+                .collect(Collectors.groupingBy(ASTNodeArtifact::getTreeHash, Collectors.counting()));
+
+        List<ASTNodeArtifact> blocks = collectBlocks(left, level, new ArrayList<>());
+        collectBlocks(right, level, blocks);
+
+        if (blocks.isEmpty()) {
+            return true;
+        }
+
+        long changed = blocks.stream().map(ASTNodeArtifact::getTreeHash).filter(h -> !baseBlocks.containsKey(h)).count();
+        double change = (double) changed / blocks.size();
+
+        LOG.fine(() -> String.format("%d of %d blocks in a file with %d nodes were changed.", changed, blocks.size(), nodes));
+
+        return change < context.getAdaptiveMinChange();
+    }
+
+    /**
+     * Applies the line based merges of blocks collected during a semistructured merge (see
+     * {@link MergeContext#setDeferredBlockMerges(List)}). The merges are independent of each other and are therefore
+     * performed concurrently using the common fork/join pool.
+     *
+     * @param blockMerges
+     *         the block level <code>MergeOperation</code>s to apply
+     * @param context
+     *         the <code>MergeContext</code>
+     */
+    static void mergeBlocks(List<MergeOperation<FileArtifact>> blockMerges, MergeContext context) {
+        LOG.finest(() -> String.format("Merging %d blocks.", blockMerges.size()));
+
+        if (blockMerges.size() == 1) {
+            mergeBlock(blockMerges.get(0), context);
+        } else if (!blockMerges.isEmpty()) {
+            blockMerges.parallelStream().forEach(op -> mergeBlock(op, context));
+        }
+    }
+
+    /**
+     * Merges the contents of the blocks in the given <code>MergeOperation</code> line based. If two of the three
+     * blocks are identical, the result is known without merging. Otherwise the result is looked up in the
+     * {@link BlockMergeCache} before the blocks are merged using the {@link LinebasedStrategy}.
+     *
+     * @param blockMerge
+     *         the block level <code>MergeOperation</code> to apply
+     * @param context
+     *         the <code>MergeContext</code>
+     */
+    public static void mergeBlock(MergeOperation<FileArtifact> blockMerge, MergeContext context) {
+        MergeScenario<FileArtifact> scenario = blockMerge.getMergeScenario();
+        String left = scenario.getLeft().getContent();
+        String base = scenario.getBase().getContent();
+        String right = scenario.getRight().getContent();
+
+        String key = null;
+        String merged;
+
+        if (left.equals(right) || base.equals(right)) {
+            merged = left;
+        } else if (base.equals(left)) {
+            merged = right;
+        } else {
+            key = BlockMergeCache.key(left, base, right);
+            merged = BlockMergeCache.get(key);
+        }
+
+        if (merged == null) {
+            linebased.merge(blockMerge, context);
+
+            if (!context.isDiffOnly()) {
+                BlockMergeCache.put(key, blockMerge.getTarget().getContent());
+            }
+        } else if (!context.isDiffOnly()) {
+            blockMerge.getTarget().setContent(merged);
+        }
+    }
+
     private static List<ASTNodeArtifact> collectBlocks(ASTNodeArtifact artifact, KeyEnums.Level level, List<ASTNodeArtifact> blocks) {
 
         if (artifact.getType() == BLOCK && artifact.getLevel() == level) {
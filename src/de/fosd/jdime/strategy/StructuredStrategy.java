@@ -24,19 +24,28 @@
 package de.fosd.jdime.strategy;
 
 import de.fosd.jdime.artifact.ast.ASTNodeArtifact;
+import de.fosd.jdime.artifact.ast.ParserIsolation;
 import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.config.merge.MergeType;
 import de.fosd.jdime.operations.MergeOperation;
+import de.fosd.jdime.stats.KeyEnums;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
+import de.fosd.jdime.stats.MergeScenarioStatus;
 import de.fosd.jdime.stats.Runtime;
 import de.fosd.jdime.stats.Statistics;
 import de.fosd.jdime.stats.StatisticsInterface;
 import de.fosd.jdime.util.parser.ParseResult;
 import de.fosd.jdime.util.parser.Parser;
 
-import java.security.Permission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static de.fosd.jdime.stats.Runtime.MERGE_LABEL;
@@ -54,25 +63,6 @@ public class StructuredStrategy extends MergeStrategy<FileArtifact> {
     private static final String PARSE_LABEL = "parse";
     private static final String SEMISTRUCTURE_LABEL = "semistructure";
 
-    private SecurityManager systemSecurityManager = System.getSecurityManager();
-    private SecurityManager noExitManager = new SecurityManager() {
-            @Override
-            public void checkPermission(Permission perm) {
-                // allow anything.
-            }
-
-            @Override
-            public void checkPermission(Permission perm, Object context) {
-                // allow anything.
-            }
-
-            @Override
-            public void checkExit(int status) {
-                super.checkExit(status);
-                throw new SecurityException("Captured attempt to exit JVM.");
-            }
-        };
-
     /**
      * The source <code>FileArtifacts</code> are extracted from the
      * <code>MergeOperation</code>, parsed by the <code>JastAddJ</code> parser
@@ -89,6 +79,22 @@ public class StructuredStrategy extends MergeStrategy<FileArtifact> {
      */
     @Override @SuppressWarnings("try")
     public void merge(MergeOperation<FileArtifact> operation, MergeContext context) {
+
+        // ExtendJ may try to exit the JVM while parsing or printing the trees.
+        try (ParserIsolation.Scope s = ParserIsolation.enter()) {
+            mergeIsolated(operation, context);
+        }
+    }
+
+    /**
+     * Performs the merge described in {@link #merge(MergeOperation, MergeContext)} in an isolation scope (see
+     * {@link ParserIsolation#enter()}).
+     *
+     * @param operation the <code>MergeOperation</code> to perform
+     * @param context the <code>MergeContext</code>
+     */
+    @SuppressWarnings("try")
+    private void mergeIsolated(MergeOperation<FileArtifact> operation, MergeContext context) {
         /*
          * The method creates ASTNodeArtifacts from the input files. An ASTNodeStrategy is then applied.
          * The result is pretty printed and possibly written to the output file.
@@ -105,91 +111,248 @@ public class StructuredStrategy extends MergeStrategy<FileArtifact> {
         String bPath = baseFile.getFile().getPath();
         String rPath = rightFile.getFile().getPath();
 
-        System.setSecurityManager(noExitManager);
-
         LOG.fine(() -> String.format("Merging:%nLeft: %s%nBase: %s%nRight: %s", lPath, bPath, rPath));
 
-        try {
-            Runtime parse = new Runtime(PARSE_LABEL);
-            Runtime semistructure = new Runtime(SEMISTRUCTURE_LABEL);
-            Runtime merge = new Runtime(MERGE_LABEL);
+        if (context.isTrivialMerges() && mergeTrivially(operation, context)) {
+            return;
+        }
 
-            ASTNodeArtifact left;
-            ASTNodeArtifact base;
-            ASTNodeArtifact right;
+        Runtime parse = new Runtime(PARSE_LABEL);
+        Runtime semistructure = new Runtime(SEMISTRUCTURE_LABEL);
+        Runtime merge = new Runtime(MERGE_LABEL);
+
+        List<FileArtifact> files = Arrays.asList(leftFile, baseFile, rightFile);
+        List<Runtime> parses = files.stream().map(f -> new Runtime(PARSE_LABEL + "_" + f.getRevision().getName()))
+                                             .collect(Collectors.toList());
+        List<String> contents;
+        List<ASTNodeArtifact> trees;
+
+        try (Runtime.Measurement m = parse.time())  {
+            contents = files.parallelStream().map(FileArtifact::getContent).collect(Collectors.toList());
+            trees = IntStream.range(0, files.size()).parallel()
+                             .mapToObj(i -> parse(files.get(i), contents.get(i), parses.get(i), context))
+                             .collect(Collectors.toList());
+        }
 
-            try (Runtime.Measurement m = parse.time())  {
-                left = new ASTNodeArtifact(leftFile);
-                base = new ASTNodeArtifact(baseFile);
-                right = new ASTNodeArtifact(rightFile);
-            }
+        if (context.isSemiStructured()) {
+            try (Runtime.Measurement m = semistructure.time()) {
 
-            if (context.isSemiStructured()) {
-                try (Runtime.Measurement m = semistructure.time()) {
-                    left = SemiStructuredStrategy.makeSemiStructured(left, context.getSemiStructuredLevel(), leftFile);
-                    base = SemiStructuredStrategy.makeSemiStructured(base, context.getSemiStructuredLevel(), baseFile);
-                    right = SemiStructuredStrategy.makeSemiStructured(right, context.getSemiStructuredLevel(), rightFile);
+                if (context.isAdaptiveSemiStructured()) {
+                    trees = semiStructureAdaptively(trees, files, contents, context);
+                } else {
+                    trees = semiStructure(trees, files, contents, context.getSemiStructuredLevel());
                 }
             }
+        }
+
+        ASTNodeArtifact left = trees.get(0);
+        ASTNodeArtifact base = trees.get(1);
+        ASTNodeArtifact right = trees.get(2);
+
+        ASTNodeArtifact targetNode = left.copy();
+
+        MergeScenario<ASTNodeArtifact> nodeTriple = new MergeScenario<>(triple.getMergeType(), left, base, right);
+        MergeOperation<ASTNodeArtifact> astMergeOp = new MergeOperation<>(nodeTriple, targetNode);
+
+        LOG.finest("Applying an ASTNodeArtifact MergeOperation.");
 
-            ASTNodeArtifact targetNode = left.copy();
+        try (Runtime.Measurement m = merge.time()) {
 
-            MergeScenario<ASTNodeArtifact> nodeTriple = new MergeScenario<>(triple.getMergeType(), left, base, right);
-            MergeOperation<ASTNodeArtifact> astMergeOp = new MergeOperation<>(nodeTriple, targetNode);
+            if (context.isSemiStructured()) {
+                List<MergeOperation<FileArtifact>> blockMerges = Collections.synchronizedList(new ArrayList<>());
+                context.setDeferredBlockMerges(blockMerges);
 
-            LOG.finest("Applying an ASTNodeArtifact MergeOperation.");
+                try {
+                    astMergeOp.apply(context);
+                } finally {
+                    context.setDeferredBlockMerges(null);
+                }
 
-            try (Runtime.Measurement m = merge.time()) {
+                SemiStructuredStrategy.mergeBlocks(blockMerges, context);
+            } else {
                 astMergeOp.apply(context);
             }
+        }
 
-            // TODO: find clusters of microconflicts and restructure them to larger conflicts
-            targetNode.collapseConflicts();
+        // TODO: find clusters of microconflicts and restructure them to larger conflicts
+        targetNode.collapseConflicts();
 
-            targetNode.setRevision(MergeScenario.TARGET, true); // TODO do this somewhere else?
+        targetNode.setRevision(MergeScenario.TARGET, true); // TODO do this somewhere else?
 
-            if (!context.isDiffOnly()) {
-                String content = targetNode.prettyPrint();
-                target.setContent(context.isOptimizeMultiConflicts() ? Parser.mergeSubsequentConflicts(content) : content);
-            }
+        if (!context.isDiffOnly()) {
+            String content = targetNode.prettyPrint();
+            target.setContent(context.isOptimizeMultiConflicts() ? Parser.mergeSubsequentConflicts(content) : content);
+        }
+
+        LOG.fine("Structured merge finished.");
+        LOG.fine(() -> String.format("%s merge time was %d ms.", getClass().getSimpleName(), merge.getTimeMS()));
+
+        if (!context.isDiffOnly()) {
+            LOG.fine(() -> String.format("Tree dump of target node:%n%s", targetNode.dump(PLAINTEXT_TREE)));
+        }
+
+        ASTNodeArtifact finalLeft = left;
+        LOG.finest(() -> String.format("Pretty-printing left:%n%s", finalLeft.prettyPrint()));
+        ASTNodeArtifact finalRight = right;
+        LOG.finest(() -> String.format("Pretty-printing right:%n%s", finalRight.prettyPrint()));
 
-            LOG.fine("Structured merge finished.");
-            LOG.fine(() -> String.format("%s merge time was %d ms.", getClass().getSimpleName(), merge.getTimeMS()));
+        if (!context.isDiffOnly()) {
+            LOG.finest(() -> String.format("Pretty-printing merge result:%n%s", target.getContent()));
+        }
+
+        if (context.hasStatistics()) {
+            Statistics statistics = context.getStatistics();
+            MergeScenarioStatistics scenarioStatistics = new MergeScenarioStatistics(triple);
 
             if (!context.isDiffOnly()) {
-                LOG.fine(() -> String.format("Tree dump of target node:%n%s", targetNode.dump(PLAINTEXT_TREE)));
+                ParseResult parseResult = scenarioStatistics.setLineStatistics(target.getContent());
+
+                if (parseResult.getConflicts() > 0) {
+                    scenarioStatistics.getFileStatistics().incrementNumOccurInConflict();
+                }
             }
 
-            ASTNodeArtifact finalLeft = left;
-            LOG.finest(() -> String.format("Pretty-printing left:%n%s", finalLeft.prettyPrint()));
-            ASTNodeArtifact finalRight = right;
-            LOG.finest(() -> String.format("Pretty-printing right:%n%s", finalRight.prettyPrint()));
+            scenarioStatistics.add(StatisticsInterface.getASTStatistics(left, right.getRevision()));
+            scenarioStatistics.add(StatisticsInterface.getASTStatistics(right, left.getRevision()));
+            scenarioStatistics.add(StatisticsInterface.getASTStatistics(targetNode, null));
+            Stream.concat(Stream.of(parse, semistructure, merge), parses.stream())
+                  .filter(Runtime::isMeasured).forEach(scenarioStatistics::putRuntime);
 
-            if (!context.isDiffOnly()) {
-                LOG.finest(() -> String.format("Pretty-printing merge result:%n%s", target.getContent()));
+            statistics.addScenarioStatistics(scenarioStatistics);
+        }
+    }
+
+    /**
+     * Parses the given <code>file</code>. The revisions of a merge are parsed concurrently.
+     *
+     * @param file
+     *         the <code>FileArtifact</code> to parse
+     * @param content
+     *         the content of <code>file</code>
+     * @param parse
+     *         the <code>Runtime</code> to store the time spent parsing in
+     * @param context
+     *         the <code>MergeContext</code>
+     * @return the resulting <code>ASTNodeArtifact</code> tree
+     */
+    @SuppressWarnings("try")
+    private static ASTNodeArtifact parse(FileArtifact file, String content, Runtime parse, MergeContext context) {
+        context.checkCancelled();
+
+        try (Runtime.Measurement m = parse.time()) {
+            return new ASTNodeArtifact(file, content);
+        }
+    }
+
+    /**
+     * Replaces the blocks of the given trees concurrently (see
+     * {@link SemiStructuredStrategy#makeSemiStructured(ASTNodeArtifact, KeyEnums.Level, FileArtifact, String)}).
+     *
+     * @param trees
+     *         the parsed left, base and right trees
+     * @param files
+     *         the <code>FileArtifact</code>s the <code>trees</code> were parsed from
+     * @param contents
+     *         the contents of the <code>files</code>
+     * @param level
+     *         the level at which to replace the blocks
+     * @return the trees to merge
+     */
+    private static List<ASTNodeArtifact> semiStructure(List<ASTNodeArtifact> trees, List<FileArtifact> files,
+                                                       List<String> contents, KeyEnums.Level level) {
+
+        return IntStream.range(0, trees.size()).parallel()
+                        .mapToObj(i -> SemiStructuredStrategy.makeSemiStructured(trees.get(i), level, files.get(i),
+                                                                                 contents.get(i)))
+                        .collect(Collectors.toList());
+    }
+
+    /**
+     * Replaces the blocks of the given trees if {@link SemiStructuredStrategy#collapseBlocks(ASTNodeArtifact,
+     * ASTNodeArtifact, ASTNodeArtifact, MergeContext)} decides that the file is to be merged semistructured.
+     * Otherwise the trees are returned unchanged and the file is merged fully structured.
+     *
+     * @param trees
+     *         the parsed left, base and right trees
+     * @param files
+     *         the <code>FileArtifact</code>s the <code>trees</code> were parsed from
+     * @param contents
+     *         the contents of the <code>files</code>
+     * @param context
+     *         the <code>MergeContext</code>
+     * @return the trees to merge
+     */
+    private static List<ASTNodeArtifact> semiStructureAdaptively(List<ASTNodeArtifact> trees, List<FileArtifact> files,
+                                                                 List<String> contents, MergeContext context) {
+
+        if (!SemiStructuredStrategy.collapseBlocks(trees.get(0), trees.get(1), trees.get(2), context)) {
+            LOG.fine(() -> "Merging " + files.get(0) + " fully structured.");
+            return trees;
+        }
+
+        return semiStructure(trees, files, contents, context.getSemiStructuredLevel());
+    }
+
+    /**
+     * Resolves the given <code>MergeOperation</code> without parsing the files if it is a three-way merge in which
+     * two of the three revisions have identical contents. If left and right are identical, or only one of them
+     * differs from the base revision, that revision is the result of the merge. The scenario is recorded with the
+     * {@link MergeScenarioStatus#TRIVIAL} status.
+     *
+     * @param operation
+     *         the <code>MergeOperation</code> to perform
+     * @param context
+     *         the <code>MergeContext</code>
+     * @return true iff the merge was resolved
+     */
+    @SuppressWarnings("try")
+    private boolean mergeTrivially(MergeOperation<FileArtifact> operation, MergeContext context) {
+        MergeScenario<FileArtifact> triple = operation.getMergeScenario();
+
+        if (triple.getMergeType() != MergeType.THREEWAY) {
+            return false;
+        }
+
+        FileArtifact left = triple.getLeft();
+        FileArtifact base = triple.getBase();
+        FileArtifact right = triple.getRight();
+
+        Runtime merge = new Runtime(MERGE_LABEL);
+        FileArtifact result;
+
+        try (Runtime.Measurement m = merge.time()) {
+
+            if (left.contentEquals(right) || base.contentEquals(right)) {
+                result = left;
+            } else if (base.contentEquals(left)) {
+                result = right;
+            } else {
+                return false;
             }
+        }
 
-            if (context.hasStatistics()) {
-                Statistics statistics = context.getStatistics();
-                MergeScenarioStatistics scenarioStatistics = new MergeScenarioStatistics(triple);
+        LOG.fine(() -> String.format("Merge is trivial, using the contents of %s.", result.getFile().getPath()));
 
-                if (!context.isDiffOnly()) {
-                    ParseResult parseResult = scenarioStatistics.setLineStatistics(target.getContent());
+        String content = result.getContent();
 
-                    if (parseResult.getConflicts() > 0) {
-                        scenarioStatistics.getFileStatistics().incrementNumOccurInConflict();
-                    }
-                }
+        if (!context.isDiffOnly()) {
+            operation.getTarget().setContent(content);
+        }
 
-                scenarioStatistics.add(StatisticsInterface.getASTStatistics(left, right.getRevision()));
-                scenarioStatistics.add(StatisticsInterface.getASTStatistics(right, left.getRevision()));
-                scenarioStatistics.add(StatisticsInterface.getASTStatistics(targetNode, null));
-                Stream.of(parse, semistructure, merge).filter(Runtime::isMeasured).forEach(scenarioStatistics::putRuntime);
+        if (context.hasStatistics()) {
+            Statistics statistics = context.getStatistics();
+            MergeScenarioStatistics scenarioStatistics = new MergeScenarioStatistics(triple);
+            ParseResult res = scenarioStatistics.setLineStatistics(content);
 
-                statistics.addScenarioStatistics(scenarioStatistics);
+            if (res.getConflicts() > 0) {
+                scenarioStatistics.getFileStatistics().incrementNumOccurInConflict();
             }
-        } finally {
-            System.setSecurityManager(systemSecurityManager);
+
+            scenarioStatistics.putRuntime(merge);
+            statistics.addScenarioStatistics(scenarioStatistics);
+            statistics.getScenarioStatistics(triple).setStatus(MergeScenarioStatus.TRIVIAL);
         }
+
+        return true;
     }
 }
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.util;
+
+import java.util.Arrays;
+
+/**
+ * An index of the offsets at which the lines of a text start. Lines are terminated by <code>\n</code>,
+ * <code>\r</code> or <code>\r\n</code> like in Java source code. The index allows converting (line, column)
+ * positions (e.g. those of the ExtendJ AST nodes) to offsets in the text without splitting the text into lines.
+ */
+public final class LineIndex {
+
+    private final String text;
+
+    /**
+     * The offsets at which the lines start. The last element is the length of the {@link #text}.
+     */
+    private final int[] starts;
+
+    /**
+     * Constructs a new <code>LineIndex</code> of the given <code>text</code>.
+     *
+     * @param text
+     *         the text to index
+     */
+    public LineIndex(String text) {
+        int[] starts = new int[16];
+        int numLines = 0;
+        int length = text.length();
+
+        starts[numLines++] = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+                i++;
+            } else if (c != '\r' && c != '\n') {
+                continue;
+            }
+
+            if (numLines == starts.length) {
+                starts = Arrays.copyOf(starts, numLines * 2);
+            }
+
+            starts[numLines++] = i + 1;
+        }
+
+        if (starts[numLines - 1] != length) {
+
+            if (numLines == starts.length) {
+                starts = Arrays.copyOf(starts, numLines + 1);
+            }
+
+            starts[numLines++] = length;
+        }
+
+        this.text = text;
+        this.starts = Arrays.copyOf(starts, numLines);
+    }
+
+    /**
+     * Returns the indexed text.
+     *
+     * @return the text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the number of lines of the text. A text ending in a line terminator does not have an additional empty
+     * last line.
+     *
+     * @return the number of lines
+     */
+    public int getNumLines() {
+        return starts.length - 1;
+    }
+
+    /**
+     * Returns the offset in the text of the given (zero based) <code>column</code> in the given (zero based)
+     * <code>line</code>. The <code>column</code> may be the length of the line (including its terminator), which
+     * is the offset at which the next line starts.
+     *
+     * @param line
+     *         the line
+     * @param column
+     *         the column in the <code>line</code>
+     * @return the offset
+     * @throws IndexOutOfBoundsException
+     *         if the <code>line</code> does not exist or the <code>column</code> is not within the <code>line</code>
+     */
+    public int offset(int line, int column) {
+
+        if (line < 0 || line >= getNumLines()) {
+            throw new IndexOutOfBoundsException("Line " + line + " does not exist.");
+        }
+
+        int start = starts[line];
+
+        if (column < 0 || column > starts[line + 1] - start) {
+            throw new IndexOutOfBoundsException("Column " + column + " is not within line " + line + ".");
+        }
+
+        return start + column;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime;
+
+import de.fosd.jdime.config.JDimeConfig;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.strategy.MergeStrategy;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the concurrent parts of a merge produce the same results as a sequential merge.
+ */
+public class ConcurrentMergeTest {
+
+    private static final String NAME = "Concurrent.java";
+
+    private static final String base = "package concurrent;\n\n" +
+                                       "import java.util.List;\n\n" +
+                                       "class A {\n" +
+                                       "  int a;\n" +
+                                       "  int get(int x) {\n" +
+                                       "    if (x > 0) {\n" +
+                                       "      return a;\n" +
+                                       "    }\n" +
+                                       "    return x;\n" +
+                                       "  }\n" +
+                                       "}\n\n" +
+                                       "class B {\n" +
+                                       "  String name;\n" +
+                                       "  void run() { System.out.println(name); }\n" +
+                                       "}\n\n" +
+                                       "class C {\n" +
+                                       "  List<String> values;\n" +
+                                       "  int size() { return values.size(); }\n" +
+                                       "}\n";
+
+    private static final String left = "package concurrent;\n\n" +
+                                       "import java.util.List;\n" +
+                                       "import java.util.Map;\n\n" +
+                                       "class A {\n" +
+                                       "  int a;\n" +
+                                       "  int added;\n" +
+                                       "  int get(int x) {\n" +
+                                       "    if (x > 1) {\n" +
+                                       "      return a;\n" +
+                                       "    }\n" +
+                                       "    return x + 1;\n" +
+                                       "  }\n" +
+                                       "}\n\n" +
+                                       "class B {\n" +
+                                       "  String name;\n" +
+                                       "  void run() { System.out.println(\"left \" + name); }\n" +
+                                       "}\n\n" +
+                                       "class C {\n" +
+                                       "  List<String> values;\n" +
+                                       "  Map<String, Integer> counts;\n" +
+                                       "  int size() { return values.size(); }\n" +
+                                       "}\n";
+
+    private static final String right = "package concurrent;\n\n" +
+                                        "import java.util.List;\n" +
+                                        "import java.util.Set;\n\n" +
+                                        "class A {\n" +
+                                        "  int a;\n" +
+                                        "  int get(int x) {\n" +
+                                        "    if (x > 2) {\n" +
+                                        "      return a;\n" +
+                                        "    }\n" +
+                                        "    return x - 1;\n" +
+                                        "  }\n" +
+                                        "  int inserted() { return a; }\n" +
+                                        "}\n\n" +
+                                        "class B {\n" +
+                                        "  String name;\n" +
+                                        "  void run() { System.out.println(\"right \" + name); }\n" +
+                                        "}\n\n" +
+                                        "class C {\n" +
+                                        "  List<String> values;\n" +
+                                        "  Set<String> keys;\n" +
+                                        "  int size() { return values.size() + keys.size(); }\n" +
+                                        "}\n\n" +
+                                        "class D {\n" +
+                                        "}\n";
+
+    @BeforeClass
+    public static void init() throws Exception {
+        JDimeConfig.setLogLevel("WARNING");
+    }
+
+    private static MergeContext context() {
+        return context(MergeStrategy.STRUCTURED);
+    }
+
+    private static MergeContext context(String strategy) {
+        MergeContext context = new MergeContext();
+        context.setMergeStrategy(MergeStrategy.parse(strategy).get());
+
+        return context;
+    }
+
+    @Test
+    public void testParallelMerge() {
+        String sequential = Main.merge(context(), NAME, left, base, right);
+
+        assertTrue(sequential.contains("<<<<<<<"));
+        assertTrue(sequential.contains("int added;"));
+        assertTrue(sequential.contains("int inserted()"));
+        assertTrue(sequential.contains("class D"));
+
+        MergeContext context = context();
+        context.setParallelMerge(true);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(sequential, Main.merge(context, NAME, left, base, right));
+        }
+    }
+
+    @Test
+    public void testParallelMatching() {
+        String sequential = Main.merge(context(), NAME, left, base, right);
+
+        MergeContext context = context();
+        context.setParallelMatching(true);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(sequential, Main.merge(context, NAME, left, base, right));
+        }
+    }
+
+    @Test
+    public void testBlockMerges() {
+        MergeContext context = context(MergeStrategy.SEMISTRUCTURED);
+        String merged = Main.merge(context, NAME, left, base, right);
+
+        int a = merged.indexOf("class A");
+        int b = merged.indexOf("class B");
+        int c = merged.indexOf("class C");
+
+        assertTrue(a < b && b < c);
+        assertTrue(merged.indexOf("x + 1") > a && merged.indexOf("x - 1") < b);
+        assertTrue(merged.indexOf("\"left \"") > b && merged.indexOf("\"right \"") < c);
+        assertTrue(merged.indexOf("keys.size()") > c);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(merged, Main.merge(context, NAME, left, base, right));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+
+import de.fosd.jdime.config.JDimeConfig;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.config.merge.Revision;
+import de.fosd.jdime.execption.AbortException;
+import de.fosd.jdime.stats.KeyEnums;
+import de.fosd.jdime.stats.MergeScenarioStatistics;
+import de.fosd.jdime.strategy.MergeStrategy;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests merging contents held in memory using {@link Main#merge(MergeContext, String, CharSequence, CharSequence,
+ * CharSequence)}.
+ */
+public class InMemoryMergeTest {
+
+    private static final String NAME = "InMemory.java";
+
+    private static final String base = "package in.memory;\n\n" +
+                                       "class InMemory {\n" +
+                                       "  int a;\n" +
+                                       "}\n";
+
+    private static final String left = "package in.memory;\n\n" +
+                                       "class InMemory {\n" +
+                                       "  int a;\n" +
+                                       "  int b;\n" +
+                                       "}\n";
+
+    private static final String right = "package in.memory;\n\n" +
+                                        "class InMemory {\n" +
+                                        "  int a;\n" +
+                                        "  int c() { return a; }\n" +
+                                        "}\n";
+
+    @BeforeClass
+    public static void init() throws Exception {
+        JDimeConfig.setLogLevel("WARNING");
+    }
+
+    private static MergeContext context(String strategy) {
+        MergeContext context = new MergeContext();
+        context.setMergeStrategy(MergeStrategy.parse(strategy).get());
+
+        return context;
+    }
+
+    private static String merge(String strategy, String left, String base, String right) {
+        return Main.merge(context(strategy), NAME, left, base, right);
+    }
+
+    @Test
+    public void testStructured() {
+        String merged = merge(MergeStrategy.STRUCTURED, left, base, right);
+
+        assertTrue(merged.contains("int b;"));
+        assertTrue(merged.contains("int c()"));
+        assertFalse(merged.contains("<<<<<<<"));
+
+        assertFalse(new File(NAME).exists());
+        assertFalse(new File("left", NAME).exists());
+    }
+
+    @Test
+    public void testTrivial() {
+        MergeContext context = context(MergeStrategy.STRUCTURED);
+        context.setTrivialMerges(true);
+
+        assertEquals(right, Main.merge(context, NAME, base, base, right));
+        assertEquals(left, Main.merge(context, NAME, left, base, left));
+    }
+
+    /**
+     * Returns the element statistics collected by a structured merge of the in-memory revisions.
+     *
+     * @param trivialMerges
+     *         whether to shortcut trivial merges
+     * @return the printed type and level statistics of all merge scenarios
+     */
+    private static String statistics(boolean trivialMerges) {
+        MergeContext context = context(MergeStrategy.STRUCTURED);
+        context.collectStatistics(true);
+        context.setTrivialMerges(trivialMerges);
+
+        Main.merge(context, NAME, left, base, right);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream ps = new PrintStream(out);
+
+        for (MergeScenarioStatistics scenario : context.getStatistics().getScenarioStatistics()) {
+            for (Revision rev : new Revision[] {MergeScenario.LEFT, MergeScenario.RIGHT, MergeScenario.TARGET}) {
+                for (KeyEnums.Type type : KeyEnums.Type.values()) {
+                    ps.println(rev + " " + type);
+                    scenario.getTypeStatistics(rev, type).print(ps, "");
+                }
+
+                for (KeyEnums.Level level : KeyEnums.Level.values()) {
+                    ps.println(rev + " " + level);
+                    scenario.getLevelStatistics(rev, level).print(ps, "");
+                }
+            }
+        }
+
+        ps.flush();
+        return out.toString();
+    }
+
+    @Test
+    public void testTrivialStatistics() {
+        assertEquals(statistics(false), statistics(true));
+    }
+
+    @Test
+    public void testAdaptive() {
+        MergeContext context = context(MergeStrategy.SEMISTRUCTURED);
+        context.setAdaptiveSemiStructured(true);
+
+        assertEquals(merge(MergeStrategy.STRUCTURED, left, base, right), Main.merge(context, NAME, left, base, right));
+
+        context.setAdaptiveMaxNodes(0);
+
+        assertEquals(merge(MergeStrategy.SEMISTRUCTURED, left, base, right),
+                     Main.merge(context, NAME, left, base, right));
+    }
+
+    @Test
+    public void testSpeculative() {
+        String combined = MergeStrategy.LINEBASED + "," + MergeStrategy.STRUCTURED;
+        MergeContext context = context(combined);
+        context.setSpeculative(true);
+
+        assertEquals(merge(combined, left, base, right), Main.merge(context, NAME, left, base, right));
+        assertEquals(merge(MergeStrategy.LINEBASED, left, base, base), Main.merge(context, NAME, left, base, base));
+
+        context = context(MergeStrategy.STRUCTURED + "," + MergeStrategy.LINEBASED);
+        context.setSpeculative(true);
+
+        assertEquals(merge(MergeStrategy.STRUCTURED, left, base, right), Main.merge(context, NAME, left, base, right));
+    }
+
+    @Test
+    public void testCancel() {
+        MergeContext context = context(MergeStrategy.STRUCTURED);
+
+        context.forkCancellable().cancel();
+        assertFalse(context.isCancelled());
+
+        context.fork().cancel();
+        assertTrue(context.isCancelled());
+    }
+
+    @Test(expected = AbortException.class)
+    public void testCancelledMerge() {
+        MergeContext context = context(MergeStrategy.STRUCTURED);
+        context.cancel();
+
+        Main.merge(context, NAME, left, base, right);
+    }
+
+    @Test
+    public void testConflict() {
+        String conflicting = left.replace("int b;", "long b;");
+        String merged = merge(MergeStrategy.STRUCTURED, left, base, conflicting);
+
+        assertTrue(merged.contains("<<<<<<< " + new File("left", NAME).getPath()));
+        assertTrue(merged.contains(">>>>>>> " + new File("right", NAME).getPath()));
+    }
+}
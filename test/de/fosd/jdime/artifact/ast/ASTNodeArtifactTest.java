@@ -23,16 +23,36 @@
  */
 package de.fosd.jdime.artifact.ast;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import de.fosd.jdime.JDimeTest;
+import de.fosd.jdime.artifact.Artifacts;
 import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.JDimeConfig;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.config.merge.MergeScenario;
 import de.fosd.jdime.config.merge.Revision;
+import de.fosd.jdime.operations.MergeOperation;
+import org.extendj.ast.ASTNode;
+import org.jastadd.util.PrettyPrinter;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import static de.fosd.jdime.config.merge.MergeType.THREEWAY;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -43,6 +63,9 @@ public class ASTNodeArtifactTest extends JDimeTest {
     private static Revision testRevision = new Revision("TEST");
     private static File testFile;
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @BeforeClass
     public static void init() throws Exception {
         JDimeConfig.setLogLevel("WARNING");
@@ -81,4 +104,133 @@ public class ASTNodeArtifactTest extends JDimeTest {
             fail(e.toString());
         }
     }
+
+    @Test
+    public void testLazyChildren() throws Exception {
+        File file = tmp.newFile("Lazy.java");
+        String code = "class Lazy {\n" +
+                      "  int a = 1;\n" +
+                      "  int get(int b) {\n" +
+                      "    return java.lang.Math.max(a, b);\n" +
+                      "  }\n" +
+                      "}\n";
+
+        Files.write(file.toPath(), code.getBytes(StandardCharsets.UTF_8));
+
+        ASTNodeArtifact lazy = new ASTNodeArtifact(new FileArtifact(testRevision, file));
+        String lazyHash = lazy.getTreeHash();
+
+        ASTNodeArtifact expanded = new ASTNodeArtifact(new FileArtifact(testRevision, file));
+        List<ASTNodeArtifact> nodes = Artifacts.dfsStream(expanded).collect(Collectors.toList());
+
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(i, nodes.get(i).getNumber());
+        }
+
+        assertEquals(expanded.getTreeHash(), lazyHash);
+        assertEquals(nodes.size(), lazy.getTreeSize());
+        assertEquals(expanded.getTreeHash(), lazy.getTreeHash());
+    }
+
+    @Test
+    public void testLinebasedASTNode() {
+        String code = "void m() {\n" +
+                      "  x();\n" +
+                      "\n" +
+                      "<<<<<<< left\n" +
+                      "  y();\n" +
+                      "=======\n" +
+                      "  z();\n" +
+                      ">>>>>>> right\n" +
+                      "}\n";
+
+        String expected = "\n" +
+                          "  void m() {\n" +
+                          "    x();\n" +
+                          "\n" +
+                          "<<<<<<< left\n" +
+                          "    y();\n" +
+                          "=======\n" +
+                          "    z();\n" +
+                          ">>>>>>> right\n" +
+                          "  }";
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrettyPrinter out = new PrettyPrinter("  ", new PrintStream(bytes));
+
+        out.println();
+        out.indent(1);
+        out.print(new LinebasedASTNode(code));
+
+        assertEquals(normalize(expected), normalize(bytes.toString()));
+    }
+
+    /**
+     * Collects the parents of all <code>ASTNode</code>s in the tree under <code>node</code>.
+     *
+     * @param node
+     *         the root of the tree
+     * @param parents
+     *         the map to add the parents to
+     * @return <code>parents</code>
+     */
+    private static Map<ASTNode<?>, ASTNode<?>> parents(ASTNode<?> node, Map<ASTNode<?>, ASTNode<?>> parents) {
+        parents.put(node, node.getParent());
+
+        for (int i = 0; i < node.getNumChildNoTransform(); i++) {
+            parents(node.getChildNoTransform(i), parents);
+        }
+
+        return parents;
+    }
+
+    private static ASTNodeArtifact parse(Revision revision, String code) {
+        return new ASTNodeArtifact(new FileArtifact(revision, new File(revision.getName(), "Parents.java").getPath(),
+                                                    code));
+    }
+
+    @Test
+    public void testMergeKeepsRevisionParents() {
+        String base = "class Parents {\n" +
+                      "  int a;\n" +
+                      "  int get() { return a; }\n" +
+                      "  void set(int v) { a = v; }\n" +
+                      "}\n";
+
+        String left = "class Parents {\n" +
+                      "  int a;\n" +
+                      "  int b;\n" +
+                      "  int get() { return a + 1; }\n" +
+                      "  void set(int v) { a = v; }\n" +
+                      "}\n";
+
+        String right = "class Parents {\n" +
+                       "  int a;\n" +
+                       "  int get() { return a + 2; }\n" +
+                       "  void set(int v) { a = v; }\n" +
+                       "  void reset() { a = 0; }\n" +
+                       "}\n";
+
+        ASTNodeArtifact leftArtifact = parse(MergeScenario.LEFT, left);
+        ASTNodeArtifact baseArtifact = parse(MergeScenario.BASE, base);
+        ASTNodeArtifact rightArtifact = parse(MergeScenario.RIGHT, right);
+
+        Map<ASTNode<?>, ASTNode<?>> leftParents = parents(leftArtifact.getASTNode(), new IdentityHashMap<>());
+        Map<ASTNode<?>, ASTNode<?>> rightParents = parents(rightArtifact.getASTNode(), new IdentityHashMap<>());
+
+        ASTNodeArtifact target = leftArtifact.copy();
+        MergeScenario<ASTNodeArtifact> scenario = new MergeScenario<>(THREEWAY, leftArtifact, baseArtifact,
+                                                                      rightArtifact);
+
+        new MergeOperation<>(scenario, target).apply(new MergeContext());
+        String merged = target.prettyPrint();
+
+        assertTrue(merged.contains("<<<<<<<"));
+        assertTrue(merged.contains("int b;"));
+        assertTrue(merged.contains("void reset()"));
+
+        for (Map<ASTNode<?>, ASTNode<?>> parents : Arrays.asList(leftParents, rightParents)) {
+            parents.forEach((node, parent) -> assertSame(node.getClass().getSimpleName(), parent, node.getParent()));
+        }
+    }
 }
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.ast;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import de.fosd.jdime.artifact.file.FileArtifact;
+import de.fosd.jdime.config.merge.Revision;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static de.fosd.jdime.strdump.DumpMode.PLAINTEXT_TREE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * Tests the <code>ParseCache</code>.
+ */
+public class ParseCacheTest {
+
+    private static final Revision testRevision = new Revision("TEST");
+
+    private static final String code = "class Cached {\n" +
+                                       "  int a = -1;\n" +
+                                       "  int get(int b) {\n" +
+                                       "    return java.lang.Math.max(a, b);\n" +
+                                       "  }\n" +
+                                       "}\n";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @After
+    public void reset() {
+        ParseCache.setMaxSize(ParseCache.DEFAULT_MAX_SIZE);
+        ParseCache.clear();
+    }
+
+    @Test
+    public void testCachedCopies() throws Exception {
+        File file = tmp.newFile("Cached.java");
+        Files.write(file.toPath(), code.getBytes(StandardCharsets.UTF_8));
+
+        ParseCache.setMaxSize(0);
+        ASTNodeArtifact parsed = new ASTNodeArtifact(new FileArtifact(testRevision, file));
+
+        ParseCache.setMaxSize(ParseCache.DEFAULT_MAX_SIZE);
+        ASTNodeArtifact first = new ASTNodeArtifact(new FileArtifact(testRevision, file));
+        ASTNodeArtifact second = new ASTNodeArtifact(new FileArtifact(testRevision, file));
+
+        assertNotSame(first.getASTNode(), second.getASTNode());
+
+        for (ASTNodeArtifact artifact : new ASTNodeArtifact[] { first, second }) {
+            assertEquals(parsed.getTreeHash(), artifact.getTreeHash());
+            assertEquals(parsed.dump(PLAINTEXT_TREE), artifact.dump(PLAINTEXT_TREE));
+            assertEquals(parsed.prettyPrint(), artifact.prettyPrint());
+        }
+    }
+}
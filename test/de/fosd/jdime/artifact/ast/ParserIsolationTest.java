@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.ast;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOError;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.fosd.jdime.artifact.file.FileArtifact;
+import de.fosd.jdime.config.merge.Revision;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static de.fosd.jdime.strdump.DumpMode.PLAINTEXT_TREE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests the <code>ParserIsolation</code>.
+ */
+public class ParserIsolationTest {
+
+    private static final Revision testRevision = new Revision("TEST");
+
+    private static final String code = "import java.util.*;\n" +
+                                       "class Isolated<T extends Comparable<T>> {\n" +
+                                       "  private final Map<String, List<T>> values = new HashMap<>();\n" +
+                                       "  int count(String key) {\n" +
+                                       "    int n = 0;\n" +
+                                       "    for (Map.Entry<String, List<T>> e : values.entrySet()) {\n" +
+                                       "      if (e.getKey().equals(key)) n += e.getValue().size();\n" +
+                                       "    }\n" +
+                                       "    return n;\n" +
+                                       "  }\n" +
+                                       "  class Inner { T max() { return Collections.max(values.get(\"\")); } }\n" +
+                                       "}\n";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @After
+    public void reset() {
+        ParseCache.setMaxSize(ParseCache.DEFAULT_MAX_SIZE);
+        ParseCache.clear();
+    }
+
+    @Test
+    public void testStateIsThreadConfined() {
+        assertTrue(ParserIsolation.newProgram().state() instanceof ParserIsolation.ThreadConfinedState);
+    }
+
+    @Test
+    public void testConcurrentParses() throws Exception {
+        File file = tmp.newFile("Isolated.java");
+        Files.write(file.toPath(), code.getBytes(StandardCharsets.UTF_8));
+
+        ParseCache.setMaxSize(0);
+
+        ASTNodeArtifact expected = new ASTNodeArtifact(new FileArtifact(testRevision, file));
+        String expectedDump = expected.dump(PLAINTEXT_TREE);
+        String expectedPrint = expected.prettyPrint();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<ASTNodeArtifact>> parses = new ArrayList<>();
+
+            for (int i = 0; i < 16; i++) {
+                parses.add(pool.submit(() -> new ASTNodeArtifact(new FileArtifact(testRevision, file))));
+            }
+
+            for (Future<ASTNodeArtifact> parse : parses) {
+                ASTNodeArtifact tree = parse.get();
+
+                assertEquals(expected.getTreeHash(), tree.getTreeHash());
+                assertEquals(expectedDump, tree.dump(PLAINTEXT_TREE));
+                assertEquals(expectedPrint, tree.prettyPrint());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testExitGuard() throws Exception {
+        assumeTrue(ParserIsolation.isExitGuarded());
+
+        try (ParserIsolation.Scope s = ParserIsolation.enter()) {
+            System.exit(1);
+            fail("The attempt to exit the JVM was not prevented.");
+        } catch (SecurityException e) {
+            assertEquals("Captured attempt to exit JVM.", e.getMessage());
+        }
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        try (ParserIsolation.Scope s = ParserIsolation.enter()) {
+            // Other threads are not in the isolation scope of this one.
+            assertTrue(pool.submit(() -> {
+                try {
+                    System.getSecurityManager().checkExit(1);
+                    return true;
+                } catch (SecurityException e) {
+                    return false;
+                }
+            }).get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testTruncatedClassfile() {
+        InputStream bytes = new ByteArrayInputStream(new byte[] { 1 });
+        ParserIsolation.ClassfileStream in = new ParserIsolation.ClassfileStream(bytes, "A.class");
+
+        assertEquals(1, in.read());
+
+        try {
+            in.read();
+            fail("Reading past the end of the class file was not reported.");
+        } catch (IOError e) {
+            assertTrue(e.getCause() instanceof EOFException);
+        }
+    }
+
+    @Test
+    public void testClassfileReadError() {
+        InputStream broken = new InputStream() {
+
+            @Override
+            public int read() throws IOException {
+                throw new IOException("broken");
+            }
+        };
+
+        try {
+            new ParserIsolation.ClassfileStream(broken, "A.class").read(new byte[4], 0, 4);
+            fail("The read error was not reported.");
+        } catch (IOError e) {
+            assertEquals("broken", e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the handling of the contents of {@link FileArtifact FileArtifacts}.
+ */
+public class FileArtifactTest {
+
+    private static final String CONTENT = "class Ümlaut {\n  String s = \"ä\";\n}\n";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testInMemory() {
+        FileArtifact chars = new FileArtifact(LEFT, "Umlaut.java", CONTENT);
+        FileArtifact bytes = new FileArtifact(LEFT, "Umlaut.java", CONTENT.getBytes(UTF_8));
+
+        assertEquals(CONTENT, bytes.getContent());
+        assertEquals(chars.getTreeHash(), bytes.getTreeHash());
+        assertFalse(bytes.isEmpty());
+        assertTrue(new FileArtifact(LEFT, "Empty.java", new byte[0]).isEmpty());
+
+        bytes.releaseContent();
+        assertEquals(CONTENT, bytes.getContent());
+    }
+
+    @Test
+    public void testOnDisk() throws IOException {
+        File file = new File(tmp.getRoot(), "Umlaut.java");
+        Files.write(file.toPath(), CONTENT.getBytes(UTF_8));
+
+        FileArtifact artifact = new FileArtifact(LEFT, file);
+        String hash = artifact.getTreeHash();
+
+        assertEquals(new FileArtifact(LEFT, "Umlaut.java", CONTENT).getTreeHash(), hash);
+        assertEquals(CONTENT, artifact.getContent());
+
+        Files.write(file.toPath(), "class Changed {}\n".getBytes(UTF_8));
+        assertEquals(CONTENT, artifact.getContent());
+
+        artifact.releaseContent();
+        assertEquals("class Changed {}\n", artifact.getContent());
+
+        artifact.setContent(CONTENT);
+        artifact.releaseContent();
+        assertEquals(CONTENT, artifact.getContent());
+        assertNotEquals(hash, new FileArtifact(LEFT, file).getTreeHash());
+    }
+
+    @Test
+    public void testContentEquals() throws IOException {
+        File file = new File(tmp.getRoot(), "Umlaut.java");
+        Files.write(file.toPath(), CONTENT.getBytes(UTF_8));
+
+        FileArtifact onDisk = new FileArtifact(LEFT, file);
+        FileArtifact bytes = new FileArtifact(LEFT, "Umlaut.java", CONTENT.getBytes(UTF_8));
+        FileArtifact chars = new FileArtifact(LEFT, "Umlaut.java", CONTENT);
+        FileArtifact other = new FileArtifact(LEFT, "Umlaut.java", CONTENT.replace('ä', 'ö').getBytes(UTF_8));
+
+        assertTrue(onDisk.contentEquals(bytes));
+        assertTrue(bytes.contentEquals(chars));
+        assertTrue(chars.contentEquals(onDisk));
+        assertFalse(onDisk.contentEquals(other));
+        assertFalse(other.contentEquals(new FileArtifact(LEFT, "Empty.java", new byte[0])));
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.file;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the <code>FileDigestCache</code>.
+ */
+public class FileDigestCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @After
+    public void reset() {
+        FileDigestCache.clear();
+    }
+
+    /**
+     * Writes the given content to a new file whose modification time lies far enough in the past for its digest to
+     * be cached.
+     */
+    private File file(String name, String content) throws IOException {
+        File file = tmp.newFile(name);
+        FileUtils.write(file, content, UTF_8);
+        assertTrue(file.setLastModified(System.currentTimeMillis() - 10 * FileDigestCache.RACY_MILLIS));
+        return file;
+    }
+
+    @Test
+    public void testDigest() throws IOException {
+        File file = file("A.java", "class A {}\n");
+        assertEquals(DigestUtils.sha256Hex("class A {}\n"), FileDigestCache.digest(file));
+
+        long modified = file.lastModified();
+        FileUtils.write(file, "class A { int a; }\n", UTF_8);
+        assertTrue(file.setLastModified(modified));
+
+        // The size changed.
+        assertEquals(DigestUtils.sha256Hex("class A { int a; }\n"), FileDigestCache.digest(file));
+    }
+
+    @Test
+    public void testContentEquals() throws IOException {
+        File a = file("A.java", "class A {}\n");
+        File b = file("B.java", "class A {}\n");
+        File c = file("C.java", "class C {}\n");
+        File d = file("D.java", "class D { }\n");
+
+        assertTrue(FileDigestCache.contentEquals(a, a));
+        assertTrue(FileDigestCache.contentEquals(a, b));
+        assertFalse(FileDigestCache.contentEquals(a, c));
+        assertFalse(FileDigestCache.contentEquals(a, d));
+    }
+
+    @Test
+    public void testPersistent() throws IOException {
+        File cache = new File(tmp.getRoot(), "digests");
+        File file = file("A.java", "class A {}\n");
+
+        FileDigestCache.load(cache);
+        FileDigestCache.digest(file);
+        FileDigestCache.save();
+        assertTrue(cache.isFile());
+
+        // Same size and modification time, the cached digest is returned.
+        long modified = file.lastModified();
+        FileUtils.write(file, "class B {}\n", UTF_8);
+        assertTrue(file.setLastModified(modified));
+
+        FileDigestCache.load(cache);
+        assertEquals(DigestUtils.sha256Hex("class A {}\n"), FileDigestCache.digest(file));
+
+        FileDigestCache.clear();
+        assertEquals(DigestUtils.sha256Hex("class B {}\n"), FileDigestCache.digest(file));
+    }
+
+    @Test
+    public void testRacy() throws IOException {
+        File file = tmp.newFile("A.java");
+        FileUtils.write(file, "class A {}\n", UTF_8);
+        FileDigestCache.digest(file);
+
+        FileUtils.write(file, "class B {}\n", UTF_8);
+        assertEquals(DigestUtils.sha256Hex("class B {}\n"), FileDigestCache.digest(file));
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import de.fosd.jdime.Main;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.config.merge.Revision;
+import de.fosd.jdime.stats.KeyEnums;
+import de.fosd.jdime.stats.MergeScenarioStatistics;
+import de.fosd.jdime.strategy.MergeStrategy;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static de.fosd.jdime.config.merge.MergeScenario.BASE;
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static de.fosd.jdime.config.merge.MergeScenario.MERGE;
+import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
+import static de.fosd.jdime.config.merge.MergeScenario.TARGET;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that merging directories using the {@link StreamingDirectoryMerge} produces the same results as merging the
+ * <code>FileArtifact</code> trees.
+ */
+public class StreamingDirectoryMergeTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File left;
+    private File base;
+    private File right;
+
+    @Before
+    public void setUp() throws IOException {
+        left = tmp.newFolder("left");
+        base = tmp.newFolder("base");
+        right = tmp.newFolder("right");
+
+        for (File dir : Arrays.asList(left, base, right)) {
+            write(dir, "p/A.java", "class A {\n  int a;\n}\n");
+            write(dir, "p/q/Q.java", "class Q {}\n");
+            write(dir, "del/D.java", "class D {}\n");
+            write(dir, "readme.txt", "notes\n");
+        }
+
+        write(left, "p/A.java", "class A {\n  int a;\n  int added;\n}\n");
+        write(right, "p/A.java", "class A {\n  int inserted;\n  int a;\n}\n");
+        write(left, "p/N.java", "class N {}\n");
+        write(right, "added/x/X.java", "class X {}\n");
+        write(right, "p/q/Q.java", "class Q { int q; }\n");
+        write(base, "C.java", "class C {}\n");
+        write(left, "C.java", "class C { int c; }\n");
+
+        FileUtils.deleteDirectory(new File(right, "del"));
+        Files.delete(new File(left, "p/q/Q.java").toPath());
+    }
+
+    private static void write(File dir, String path, String content) throws IOException {
+        FileUtils.write(new File(dir, path), content, UTF_8);
+    }
+
+    private File merge(boolean streaming) throws IOException {
+        return merge(streaming, new MergeContext());
+    }
+
+    private File merge(boolean streaming, MergeContext context) throws IOException {
+        File out = tmp.newFolder((streaming ? "streaming" : "tree") + (context.hasStatistics() ? "Statistics" : ""));
+        boolean recursive = !streaming || context.hasStatistics(); // as in MergeContext#configureFrom
+
+        context.setMergeStrategy(MergeStrategy.parse(MergeStrategy.STRUCTURED).get());
+        context.setPretend(false);
+        context.setStreamingDirectories(streaming);
+        context.setInputFiles(Arrays.asList(new FileArtifact(LEFT, left, recursive),
+                                            new FileArtifact(BASE, base, recursive),
+                                            new FileArtifact(RIGHT, right, recursive)));
+        context.setOutputFile(new FileArtifact(MERGE, out, false));
+
+        Main.merge(context);
+        context.getOutputFile().writeContent();
+
+        return out;
+    }
+
+    /**
+     * Returns the element statistics of the merge scenarios recorded in the given <code>context</code>, sorted by
+     * scenario.
+     *
+     * @param context
+     *         the <code>MergeContext</code> of a finished merge
+     * @return the printed scenarios and their type and level statistics
+     */
+    private static List<String> statistics(MergeContext context) {
+        List<String> statistics = new ArrayList<>();
+
+        for (MergeScenarioStatistics scenario : context.getStatistics().getScenarioStatistics()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            PrintStream ps = new PrintStream(out);
+
+            ps.println(scenario.getMergeScenario());
+
+            for (Revision rev : new Revision[] {LEFT, RIGHT, TARGET}) {
+                for (KeyEnums.Type type : KeyEnums.Type.values()) {
+                    ps.println(rev + " " + type);
+                    scenario.getTypeStatistics(rev, type).print(ps, "");
+                }
+
+                for (KeyEnums.Level level : KeyEnums.Level.values()) {
+                    ps.println(rev + " " + level);
+                    scenario.getLevelStatistics(rev, level).print(ps, "");
+                }
+            }
+
+            ps.flush();
+            statistics.add(out.toString());
+        }
+
+        Collections.sort(statistics);
+        return statistics;
+    }
+
+    private static List<String> files(File dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            return paths.filter(Files::isRegularFile).map(p -> dir.toPath().relativize(p).toString()).sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testSameResult() throws IOException {
+        File tree = merge(false);
+        File streaming = merge(true);
+        List<String> files = files(tree);
+
+        assertEquals(files, files(streaming));
+        assertTrue(files.contains(new File("added/x/X.java").getPath()));
+        assertFalse(files.contains(new File("del/D.java").getPath()));
+
+        for (String file : files) {
+            assertEquals(file, FileUtils.readFileToString(new File(tree, file), UTF_8),
+                         FileUtils.readFileToString(new File(streaming, file), UTF_8));
+        }
+
+        String conflict = FileUtils.readFileToString(new File(streaming, "C.java"), UTF_8);
+        assertTrue(conflict.startsWith("<<<<<<<"));
+
+        String merged = FileUtils.readFileToString(new File(streaming, "p/A.java"), UTF_8);
+        assertTrue(merged.contains("added") && merged.contains("inserted"));
+    }
+
+    @Test
+    public void testSameStatistics() throws IOException {
+        MergeContext treeContext = new MergeContext();
+        MergeContext streamingContext = new MergeContext();
+
+        treeContext.collectStatistics(true);
+        streamingContext.collectStatistics(true);
+
+        File tree = merge(false, treeContext);
+        File streaming = merge(true, streamingContext);
+        List<String> files = files(tree);
+
+        assertEquals(files, files(streaming));
+
+        for (String file : files) {
+            assertEquals(file, FileUtils.readFileToString(new File(tree, file), UTF_8),
+                         FileUtils.readFileToString(new File(streaming, file), UTF_8));
+        }
+
+        List<String> statistics = statistics(treeContext);
+
+        assertFalse(statistics.isEmpty());
+        assertEquals(statistics, statistics(streamingContext));
+    }
+}
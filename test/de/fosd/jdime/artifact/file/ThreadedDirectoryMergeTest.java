@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import de.fosd.jdime.Main;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.execption.AbortException;
+import de.fosd.jdime.operations.MergeOperation;
+import de.fosd.jdime.strategy.MergeStrategy;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static de.fosd.jdime.config.merge.MergeScenario.BASE;
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static de.fosd.jdime.config.merge.MergeScenario.MERGE;
+import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that merging the files of a directory merge on a worker pool (see {@link MergeContext#getThreads()})
+ * produces the same results as merging them one after another.
+ */
+public class ThreadedDirectoryMergeTest {
+
+    private static final int FILES = 8;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File left;
+    private File base;
+    private File right;
+
+    @Before
+    public void setUp() throws IOException {
+        left = tmp.newFolder("left");
+        base = tmp.newFolder("base");
+        right = tmp.newFolder("right");
+
+        for (int i = 0; i < FILES; i++) {
+            String name = "p" + (i % 3) + "/T" + i + ".java";
+            String cls = "class T" + i + " {\n  int a;\n  int get() { return a; }\n}\n";
+
+            write(base, name, cls);
+            write(left, name, cls.replace("int a;", "int a;\n  int added" + i + ";"));
+            write(right, name, cls.replace("return a;", i % 2 == 0 ? "return a + " + i + ";" : "return -a;"));
+        }
+
+        write(left, "p0/T0.java", "class T0 {\n  int a;\n  int get() { return a * 2; }\n}\n");
+    }
+
+    private static void write(File dir, String path, String content) throws IOException {
+        FileUtils.write(new File(dir, path), content, UTF_8);
+    }
+
+    private File merge(int threads) throws IOException {
+        return merge(threads, MergeStrategy.parse(MergeStrategy.STRUCTURED).get());
+    }
+
+    private File merge(int threads, MergeStrategy<FileArtifact> strategy) throws IOException {
+        File out = tmp.newFolder("out" + threads);
+        MergeContext context = new MergeContext();
+
+        context.setMergeStrategy(strategy);
+        context.setPretend(false);
+        context.setThreads(threads);
+        context.setInputFiles(Arrays.asList(new FileArtifact(LEFT, left, true),
+                                            new FileArtifact(BASE, base, true),
+                                            new FileArtifact(RIGHT, right, true)));
+        context.setOutputFile(new FileArtifact(MERGE, out, false));
+
+        Main.merge(context);
+        context.getOutputFile().writeContent();
+
+        return out;
+    }
+
+    @Test
+    public void testSameResult() throws IOException {
+        File sequential = merge(1);
+        File threaded = merge(4);
+        Collection<File> files = FileUtils.listFiles(sequential, null, true);
+
+        assertEquals(FILES, files.size());
+
+        for (File file : files) {
+            String path = sequential.toPath().relativize(file.toPath()).toString();
+            String content = FileUtils.readFileToString(file, UTF_8);
+
+            assertEquals(path, content, FileUtils.readFileToString(new File(threaded, path), UTF_8));
+        }
+
+        String conflict = FileUtils.readFileToString(new File(threaded, "p0/T0.java"), UTF_8);
+        assertTrue(conflict.contains("<<<<<<<"));
+
+        String merged = FileUtils.readFileToString(new File(threaded, "p1/T1.java"), UTF_8);
+        assertTrue(merged.contains("added1") && merged.contains("-a"));
+    }
+
+    @Test
+    public void testAbortCancelsOtherMerges() throws IOException {
+        String padding = "// " + new String(new char[1024]).replace('\0', 'x') + "\n";
+
+        // make T0 the largest scenario so that it is merged first
+        for (File dir : Arrays.asList(left, base, right)) {
+            File t0 = new File(dir, "p0/T0.java");
+            write(dir, "p0/T0.java", padding + FileUtils.readFileToString(t0, UTF_8));
+        }
+
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger cancelled = new AtomicInteger();
+        Set<Boolean> daemon = ConcurrentHashMap.newKeySet();
+
+        MergeStrategy<FileArtifact> strategy = new MergeStrategy<FileArtifact>() {
+
+            @Override
+            public void merge(MergeOperation<FileArtifact> operation, MergeContext context) {
+                daemon.add(Thread.currentThread().isDaemon());
+
+                if (operation.getMergeScenario().getLeft().getFile().getName().equals("T0.java")) {
+
+                    try {
+                        started.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    throw new AbortException("Failed to merge T0.");
+                }
+
+                started.countDown();
+
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+                while (!context.isCancelled() && System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+
+                if (context.isCancelled()) {
+                    cancelled.incrementAndGet();
+                }
+
+                context.checkCancelled();
+            }
+        };
+
+        try {
+            merge(2, strategy);
+            fail("The merge was not aborted.");
+        } catch (AbortException e) {
+            assertEquals("Failed to merge T0.", e.getMessage());
+        }
+
+        assertTrue(cancelled.get() > 0);
+        assertFalse(daemon.contains(false));
+    }
+}
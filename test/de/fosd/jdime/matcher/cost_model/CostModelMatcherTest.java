@@ -23,22 +23,31 @@
  */
 package de.fosd.jdime.matcher.cost_model;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import de.fosd.jdime.JDimeTest;
 import de.fosd.jdime.artifact.TestArtifact;
+import de.fosd.jdime.config.JDimeConfig;
 import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.execption.AbortException;
 import de.fosd.jdime.matcher.matching.Matching;
 import de.fosd.jdime.matcher.matching.Matchings;
+import de.fosd.jdime.util.Tuple;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import static de.fosd.jdime.artifact.Artifacts.root;
+import static de.fosd.jdime.config.CommandLineConfigSource.CLI_CM_CONTEXT_RADIUS;
 import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
 import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
 import static de.fosd.jdime.stats.KeyEnums.Type.NODE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class CostModelMatcherTest extends JDimeTest {
 
@@ -163,6 +172,112 @@ public class CostModelMatcherTest extends JDimeTest {
         testCostModelMatching(expected, 1.0f, 1.0f, 0.5f, 0.5f, 0);
     }
 
+    @Test
+    public void matchRegions() throws Exception {
+        TestArtifact la = new TestArtifact(LEFT, "A", NODE);
+        TestArtifact lb = new TestArtifact(LEFT, "B", NODE);
+        TestArtifact lc1 = new TestArtifact(LEFT, "C", NODE);
+        TestArtifact lc2 = new TestArtifact(LEFT, "C", NODE);
+        TestArtifact ld = new TestArtifact(LEFT, "D", NODE);
+        TestArtifact lf1 = new TestArtifact(LEFT, "F", NODE);
+        TestArtifact lf2 = new TestArtifact(LEFT, "F", NODE);
+        TestArtifact lg = new TestArtifact(LEFT, "G", NODE);
+
+        la.addChild(lb);
+        la.addChild(ld);
+        lb.addChild(lc1);
+        lb.addChild(lc2);
+        ld.addChild(lf1);
+        ld.addChild(lf2);
+        ld.addChild(lg);
+
+        TestArtifact ra = new TestArtifact(RIGHT, "A", NODE);
+        TestArtifact rb = new TestArtifact(RIGHT, "B", NODE);
+        TestArtifact rc1 = new TestArtifact(RIGHT, "C", NODE);
+        TestArtifact rc2 = new TestArtifact(RIGHT, "C", NODE);
+        TestArtifact rd = new TestArtifact(RIGHT, "D", NODE);
+        TestArtifact rf1 = new TestArtifact(RIGHT, "F", NODE);
+        TestArtifact rf2 = new TestArtifact(RIGHT, "F", NODE);
+        TestArtifact rh = new TestArtifact(RIGHT, "H", NODE);
+
+        ra.addChild(rb);
+        ra.addChild(rd);
+        rb.addChild(rc1);
+        rb.addChild(rc2);
+        rd.addChild(rf1);
+        rd.addChild(rf2);
+        rd.addChild(rh);
+
+        root(la).renumber();
+        root(ra).renumber();
+
+        Matchings<TestArtifact> preFixed = new Matchings<>();
+
+        preFixed.add(new Matching<>(la, ra, 7));
+        preFixed.add(new Matching<>(lb, rb, 3));
+        preFixed.add(new Matching<>(lc1, rc1, 1));
+        preFixed.add(new Matching<>(lc2, rc2, 1));
+        preFixed.add(new Matching<>(ld, rd, 3));
+        preFixed.add(new Matching<>(lf1, rf1, 1));
+        preFixed.add(new Matching<>(lf2, rf2, 1));
+
+        MergeContext context = new MergeContext();
+
+        context.setSeed(Optional.of(42L));
+        context.setCostModelIterations(10);
+        context.setCmContextRadius(0);
+
+        Matchings<TestArtifact> actual = matcher.matchRegions(context, la, ra, preFixed);
+
+        for (Matching<TestArtifact> fixed : preFixed) {
+            assertTrue(actual.get(fixed.getLeft(), fixed.getRight()).isPresent());
+        }
+
+        Optional<Matching<TestArtifact>> gMatching = actual.getLeft(lg);
+
+        assertTrue(gMatching.map(m -> m.getRight() == rh).orElse(true));
+        assertEquals(gMatching.isPresent() ? 8 : 7, (int) actual.getScore(la, ra).get());
+
+        // Only the subtrees containing unmatched nodes (plus the context levels) are optimized.
+        List<Tuple<TestArtifact, TestArtifact>> regions = matcher.regions(context, la, ra, preFixed.optimized());
+        assertEquals(Collections.singletonList(Tuple.of(ld, rd)), regions);
+
+        context.setCmContextRadius(1);
+        regions = matcher.regions(context, la, ra, preFixed.optimized());
+        assertEquals(Collections.singletonList(Tuple.of(la, ra)), regions);
+
+        // Two separate regions if the matching of the second C's is dropped as well.
+        Matchings<TestArtifact> partial = new Matchings<>();
+
+        for (Matching<TestArtifact> matching : preFixed) {
+            if (matching.getLeft() == lb) {
+                partial.add(new Matching<>(lb, rb, 2));
+            } else if (matching.getLeft() != lc2) {
+                partial.add(matching);
+            }
+        }
+
+        context.setCmContextRadius(0);
+        regions = matcher.regions(context, la, ra, partial.optimized());
+        assertEquals(Arrays.asList(Tuple.of(lb, rb), Tuple.of(ld, rd)), regions);
+
+        context.setCmContextRadius(1);
+        regions = matcher.regions(context, la, ra, partial.optimized());
+        assertEquals(Collections.singletonList(Tuple.of(la, ra)), regions);
+    }
+
+    @Test
+    public void negativeContextRadius() throws Exception {
+        JDimeConfig config = new JDimeConfig(new String[] {"-m", "structured", "-" + CLI_CM_CONTEXT_RADIUS, "-1"});
+
+        try {
+            new MergeContext().configureFrom(config);
+            fail("A negative context radius must be rejected.");
+        } catch (AbortException e) {
+            assertTrue(e.getMessage().contains("context radius"));
+        }
+    }
+
     private void testCostModelMatching(Matchings<TestArtifact> expected, float wr, float wn, float wa, float ws, float wo) throws Exception {
         MergeContext context = new MergeContext();
 
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.merge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the line based merge of {@link Diff3}. The expected results are those of <code>git merge-file -p</code>.
+ */
+public class Diff3Test {
+
+    private static String merge(String left, String base, String right) {
+        return Diff3.merge(left, base, right, "L", "R");
+    }
+
+    @Test
+    public void testDiff() {
+        assertArrayEquals(new int[] {0, -1, 1}, Diff3.diff(new int[] {1, 2, 3}, new int[] {1, 3}));
+        assertArrayEquals(new int[] {-1, -1}, Diff3.diff(new int[] {1, 2}, new int[] {3}));
+        assertArrayEquals(new int[] {1, 2, 4}, Diff3.diff(new int[] {1, 2, 3}, new int[] {0, 1, 2, 0, 3}));
+        assertArrayEquals(new int[] {}, Diff3.diff(new int[] {}, new int[] {1}));
+    }
+
+    @Test
+    public void testClean() {
+        assertEquals("a\nB\nc\nD\n", merge("a\nB\nc\nd\n", "a\nb\nc\nd\n", "a\nb\nc\nD\n"));
+        assertEquals("x\na\nb\n", merge("x\na\nb\n", "a\nb\n", "a\nb\n"));
+        assertEquals("a\n", merge("a\nb\n", "a\nb\n", "a\n"));
+        assertEquals("a\nB\n", merge("a\nB\n", "a\nb\n", "a\nB\n"));
+    }
+
+    @Test
+    public void testConflicts() {
+        assertEquals("a\n<<<<<<< L\nX\n=======\nY\n>>>>>>> R\nc\n", merge("a\nX\nc\n", "a\nb\nc\n", "a\nY\nc\n"));
+
+        // Changes of adjacent lines conflict.
+        assertEquals("a\n<<<<<<< L\nB\nc\n=======\nb\nC\n>>>>>>> R\nd\n",
+                merge("a\nB\nc\nd\n", "a\nb\nc\nd\n", "a\nb\nC\nd\n"));
+
+        // Insertions at the same position conflict.
+        assertEquals("<<<<<<< L\n=======\na\nb\n>>>>>>> R\n", merge("", "a\n", "a\nb\n"));
+    }
+
+    @Test
+    public void testRefineAndCombine() {
+
+        // Lines common to both sides of a conflict are moved out of it.
+        assertEquals("a\n<<<<<<< L\nx\n=======\ny\n>>>>>>> R\nc\n",
+                merge("a\nx\nc\n", "b\n", "a\ny\nc\n"));
+
+        // Conflicts separated by at most three lines are combined.
+        assertEquals("<<<<<<< L\nx\ns\ny\n=======\nX\ns\nY\n>>>>>>> R\n",
+                merge("x\ns\ny\n", "a\ns\nb\n", "X\ns\nY\n"));
+        assertEquals("<<<<<<< L\nx\n=======\nX\n>>>>>>> R\ns\ns\ns\ns\n<<<<<<< L\ny\n=======\nY\n>>>>>>> R\n",
+                merge("x\ns\ns\ns\ns\ny\n", "a\ns\ns\ns\ns\nb\n", "X\ns\ns\ns\ns\nY\n"));
+    }
+
+    @Test
+    public void testLineEndings() {
+        assertEquals("a\nb", merge("a\nb", "a\nb\n", "a\nb\n"));
+        assertEquals("a\n<<<<<<< L\nX\n=======\nY\n>>>>>>> R\n", merge("a\nX", "a\nb", "a\nY"));
+        assertEquals("a\r\n<<<<<<< L\r\nX\r\n=======\r\nY\r\n>>>>>>> R\r\n",
+                merge("a\r\nX\r\n", "a\r\nb\r\n", "a\r\nY\r\n"));
+    }
+
+    @Test
+    public void testLabels() {
+        assertEquals("<<<<<<<\nx\n=======\ny\n>>>>>>>\n", Diff3.merge("x\n", "", "y\n", null, null));
+    }
+}
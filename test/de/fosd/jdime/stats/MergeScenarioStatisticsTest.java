@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.stats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import de.fosd.jdime.artifact.file.FileArtifact;
+import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.config.merge.MergeType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for <code>MergeScenarioStatistics</code> and the order in which <code>Statistics</code> are printed.
+ */
+public class MergeScenarioStatisticsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private MergeScenario<FileArtifact> first;
+    private MergeScenario<FileArtifact> second;
+
+    @Before
+    public void setUp() throws Exception {
+        first = scenario("First.java");
+        second = scenario("Second.java");
+    }
+
+    private MergeScenario<FileArtifact> scenario(String name) throws IOException {
+        FileArtifact left = new FileArtifact(MergeScenario.LEFT, file("left", name));
+        FileArtifact base = new FileArtifact(MergeScenario.BASE, file("base", name));
+        FileArtifact right = new FileArtifact(MergeScenario.RIGHT, file("right", name));
+
+        return new MergeScenario<>(MergeType.THREEWAY, left, base, right);
+    }
+
+    private File file(String revision, String name) throws IOException {
+        File file = new File(tmp.newFolder(revision + name), name);
+        assertTrue(file.createNewFile());
+
+        return file;
+    }
+
+    /**
+     * Records level and type statistics in the given order.
+     */
+    private MergeScenarioStatistics record(MergeScenario<?> scenario, List<KeyEnums.Level> levels,
+                                           List<KeyEnums.Type> types) {
+        MergeScenarioStatistics stats = new MergeScenarioStatistics(scenario);
+
+        for (KeyEnums.Level level : levels) {
+            stats.getLevelStatistics(MergeScenario.LEFT, level).incrementTotal();
+        }
+
+        for (KeyEnums.Type type : types) {
+            stats.getTypeStatistics(MergeScenario.LEFT, type).incrementTotal();
+        }
+
+        return stats;
+    }
+
+    private static String print(MergeScenarioStatistics stats) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (PrintStream ps = new PrintStream(out)) {
+            stats.print(ps);
+        }
+
+        return out.toString();
+    }
+
+    private static String print(Statistics stats) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (PrintStream ps = new PrintStream(out)) {
+            stats.print(ps);
+        }
+
+        return out.toString();
+    }
+
+    @Test
+    public void testPrintOrderIndependentOfRecordingOrder() {
+        List<KeyEnums.Level> levels = Arrays.asList(KeyEnums.Level.TOP, KeyEnums.Level.CLASS, KeyEnums.Level.METHOD);
+        List<KeyEnums.Type> types = Arrays.asList(KeyEnums.Type.NODE, KeyEnums.Type.CLASS, KeyEnums.Type.METHOD,
+                KeyEnums.Type.TRY);
+
+        MergeScenarioStatistics forward = record(first, levels, types);
+
+        List<KeyEnums.Level> revLevels = Arrays.asList(KeyEnums.Level.METHOD, KeyEnums.Level.CLASS, KeyEnums.Level.TOP);
+        List<KeyEnums.Type> revTypes = Arrays.asList(KeyEnums.Type.TRY, KeyEnums.Type.METHOD, KeyEnums.Type.CLASS,
+                KeyEnums.Type.NODE);
+
+        MergeScenarioStatistics backward = record(first, revLevels, revTypes);
+
+        String printed = print(forward);
+
+        assertEquals(printed, print(backward));
+        assertEquals(printed, print(new MergeScenarioStatistics(backward)));
+
+        int top = printed.indexOf("Level " + KeyEnums.Level.TOP);
+        int method = printed.indexOf("Level " + KeyEnums.Level.METHOD);
+
+        assertTrue(top >= 0 && method > top);
+    }
+
+    @Test
+    public void testScenarioOrder() {
+        Statistics statistics = new Statistics();
+
+        statistics.addScenarioStatistics(new MergeScenarioStatistics(second));
+        statistics.addScenarioStatistics(new MergeScenarioStatistics(first));
+        statistics.getScenarioStatistics(second).getFileStatistics().incrementTotal();
+
+        List<MergeScenarioStatistics> scenarios = statistics.getScenarioStatistics();
+
+        assertEquals(2, scenarios.size());
+        assertEquals(second, scenarios.get(0).getMergeScenario());
+        assertEquals(first, scenarios.get(1).getMergeScenario());
+
+        Statistics copy = new Statistics(statistics);
+        Statistics sum = new Statistics();
+        sum.add(statistics);
+
+        String printed = print(statistics);
+
+        assertEquals(printed, print(copy));
+        assertEquals(printed, print(sum));
+        assertTrue(printed.indexOf("Second.java") < printed.indexOf("First.java"));
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.strategy;
+
+import de.fosd.jdime.artifact.file.FileArtifact;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.operations.MergeOperation;
+import org.junit.After;
+import org.junit.Test;
+
+import static de.fosd.jdime.config.merge.MergeScenario.BASE;
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static de.fosd.jdime.config.merge.MergeScenario.MERGE;
+import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
+import static de.fosd.jdime.config.merge.MergeType.THREEWAY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the merging of blocks using {@link SemiStructuredStrategy#mergeBlock(MergeOperation, MergeContext)} and the
+ * <code>BlockMergeCache</code>.
+ */
+public class BlockMergeCacheTest {
+
+    @After
+    public void reset() {
+        BlockMergeCache.setMaxSize(BlockMergeCache.DEFAULT_MAX_SIZE);
+        BlockMergeCache.clear();
+    }
+
+    private static String mergeBlock(String left, String base, String right) {
+        FileArtifact l = new FileArtifact(LEFT, "Left.java", left);
+        FileArtifact b = new FileArtifact(BASE, "Base.java", base);
+        FileArtifact r = new FileArtifact(RIGHT, "Right.java", right);
+        FileArtifact target = new FileArtifact(MERGE, "Merge.java", "");
+
+        MergeScenario<FileArtifact> scenario = new MergeScenario<>(THREEWAY, l, b, r);
+        SemiStructuredStrategy.mergeBlock(new MergeOperation<>(scenario, target), new MergeContext());
+
+        return target.getContent();
+    }
+
+    @Test
+    public void testTrivial() {
+        assertEquals("a = 1;\n", mergeBlock("a = 1;\n", "a = 0;\n", "a = 1;\n"));
+        assertEquals("a = 2;\n", mergeBlock("a = 0;\n", "a = 0;\n", "a = 2;\n"));
+        assertEquals("a = 1;\n", mergeBlock("a = 1;\n", "a = 0;\n", "a = 0;\n"));
+    }
+
+    @Test
+    public void testCached() {
+        String key = BlockMergeCache.key("a = 1;\n", "a = 0;\n", "b = 1;\n");
+        BlockMergeCache.put(key, "cached\n");
+
+        assertEquals("cached\n", BlockMergeCache.get(key));
+        assertEquals("cached\n", mergeBlock("a = 1;\n", "a = 0;\n", "b = 1;\n"));
+
+        BlockMergeCache.setMaxSize(0);
+        assertNull(BlockMergeCache.get(key));
+    }
+
+    @Test
+    public void testConflictsNotCached() {
+        String key = BlockMergeCache.key("a = 1;\n", "a = 0;\n", "a = 2;\n");
+        BlockMergeCache.put(key, "<<<<<<< Left.java\na = 1;\n=======\na = 2;\n>>>>>>> Right.java\n");
+
+        assertNull(BlockMergeCache.get(key));
+    }
+}
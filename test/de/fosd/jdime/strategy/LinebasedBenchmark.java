@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.fosd.jdime.artifact.file.FileArtifact;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.operations.MergeOperation;
+
+import static de.fosd.jdime.config.merge.MergeScenario.BASE;
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static de.fosd.jdime.config.merge.MergeScenario.MERGE;
+import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
+import static de.fosd.jdime.config.merge.MergeType.THREEWAY;
+
+/**
+ * Compares the runtime of the line based merges performed by libgit2 and by <code>Diff3</code> on generated files.
+ * Run with the number of lines of the generated files and the number of edits per revision as arguments (defaults
+ * are 5000 and 50). The output lists the mean time per merge of both implementations and whether their results
+ * are equal.
+ */
+public class LinebasedBenchmark {
+
+    private static final int WARMUP = 20;
+    private static final int RUNS = 50;
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Random random = new Random(42);
+
+        List<String> base = new ArrayList<>(lines);
+
+        for (int i = 0; i < lines; i++) {
+            base.add("    statement" + random.nextInt(lines / 4 + 1) + "();\n");
+        }
+
+        MergeScenario<FileArtifact> scenario = new MergeScenario<>(THREEWAY,
+                new FileArtifact(LEFT, "Left.java", edit(base, edits, random)),
+                new FileArtifact(BASE, "Base.java", String.join("", base)),
+                new FileArtifact(RIGHT, "Right.java", edit(base, edits, random)));
+
+        MergeContext nativeContext = new MergeContext();
+        MergeContext javaContext = new MergeContext();
+
+        javaContext.setJavaDiff3(true);
+
+        String nativeResult = merge(scenario, nativeContext);
+        String javaResult = merge(scenario, javaContext);
+
+        System.out.printf("%d lines, %d edits per revision%n", lines, edits);
+        System.out.printf("libgit2: %.3f ms%n", time(scenario, nativeContext));
+        System.out.printf("Diff3:   %.3f ms%n", time(scenario, javaContext));
+        System.out.printf("equal results: %b%n", nativeResult.equals(javaResult));
+    }
+
+    /**
+     * Returns a copy of <code>base</code> with <code>edits</code> random insertions, deletions and replacements.
+     */
+    private static String edit(List<String> base, int edits, Random random) {
+        List<String> lines = new ArrayList<>(base);
+
+        for (int i = 0; i < edits; i++) {
+            int pos = random.nextInt(lines.size());
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    lines.add(pos, "    inserted" + random.nextInt() + "();\n");
+                    break;
+                case 1:
+                    lines.remove(pos);
+                    break;
+                default:
+                    lines.set(pos, "    replaced" + random.nextInt() + "();\n");
+            }
+        }
+
+        return String.join("", lines);
+    }
+
+    private static String merge(MergeScenario<FileArtifact> scenario, MergeContext context) {
+        FileArtifact target = new FileArtifact(MERGE, "Merge.java", "");
+
+        new LinebasedStrategy().merge(new MergeOperation<>(scenario, target), context);
+        return target.getContent();
+    }
+
+    /**
+     * Returns the mean time in milliseconds of a merge of the <code>scenario</code> using the <code>context</code>.
+     */
+    private static double time(MergeScenario<FileArtifact> scenario, MergeContext context) {
+
+        for (int i = 0; i < WARMUP; i++) {
+            merge(scenario, context);
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < RUNS; i++) {
+            merge(scenario, context);
+        }
+
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for <code>LineIndex</code>.
+ */
+public class LineIndexTest {
+
+    @Test
+    public void testOffsets() {
+        String text = "L0\nL1\r\nL2\rL3";
+        LineIndex index = new LineIndex(text);
+
+        assertEquals(4, index.getNumLines());
+        assertEquals(0, index.offset(0, 0));
+        assertEquals(3, index.offset(1, 0));
+        assertEquals(7, index.offset(2, 0));
+        assertEquals(11, index.offset(3, 1));
+        assertEquals(text.length(), index.offset(3, 2));
+        assertEquals(index.offset(2, 0), index.offset(1, 4));
+    }
+
+    @Test
+    public void testTrailingTerminator() {
+        assertEquals(0, new LineIndex("").getNumLines());
+        assertEquals(1, new LineIndex("L0").getNumLines());
+        assertEquals(1, new LineIndex("L0\n").getNumLines());
+        assertEquals(2, new LineIndex("L0\n\n").getNumLines());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testColumnOutOfBounds() {
+        new LineIndex("L0\nL1").offset(0, 4);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testLineOutOfBounds() {
+        new LineIndex("L0\nL1").offset(2, 0);
+    }
+}